@@ -1,5 +1,7 @@
 package com.kobipast.orderservice.api;
 
+import com.kobipast.orderservice.dto.BatchGetOrdersRequest;
+import com.kobipast.orderservice.dto.BatchGetOrdersResponse;
 import com.kobipast.orderservice.dto.CreateOrderRequest;
 import com.kobipast.orderservice.dto.OrderDto;
 import com.kobipast.orderservice.dto.UpdateOrderStatusRequest;
@@ -11,6 +13,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -36,6 +43,25 @@ public class OrderController {
         return mapper.toDto(service.get(id));
     }
 
+    // One IN query for many ids, so a caller showing a list of orders doesn't pay a round trip per order.
+    @PostMapping("/batch-get")
+    public BatchGetOrdersResponse batchGet(@Valid @RequestBody BatchGetOrdersRequest req) {
+        Set<UUID> ids = new LinkedHashSet<>(req.ids());
+        Map<UUID, Order> found = service.getAll(ids);
+
+        List<OrderDto> orders = new ArrayList<>(found.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            Order order = found.get(id);
+            if (order != null) {
+                orders.add(mapper.toDto(order));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchGetOrdersResponse(orders, missing);
+    }
+
     @PatchMapping("/{id}/status")
     public OrderDto updateStatus(@PathVariable UUID id, @Valid @RequestBody UpdateOrderStatusRequest req) {
         return mapper.toDto(service.updateStatus(id, req));
@@ -0,0 +1,12 @@
+package com.kobipast.orderservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchGetOrdersRequest(
+        @NotEmpty @Size(max = 200) List<@NotNull UUID> ids
+) {}
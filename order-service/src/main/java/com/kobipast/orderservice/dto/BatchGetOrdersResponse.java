@@ -0,0 +1,10 @@
+package com.kobipast.orderservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Orders in request order; ids with no order are listed in missing instead of failing the batch.
+public record BatchGetOrdersResponse(
+        List<OrderDto> orders,
+        List<UUID> missing
+) {}
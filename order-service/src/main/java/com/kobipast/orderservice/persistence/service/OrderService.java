@@ -9,7 +9,11 @@ import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -33,6 +37,12 @@ public class OrderService {
         return repo.findById(id).orElseThrow(() -> new EntityNotFoundException("Order not found: " + id));
     }
 
+    // findAllById issues a single "where id in (...)" query
+    @Transactional(readOnly = true)
+    public Map<UUID, Order> getAll(Collection<UUID> ids) {
+        return repo.findAllById(ids).stream().collect(Collectors.toMap(Order::getId, Function.identity()));
+    }
+
     @Transactional
     public Order updateStatus(UUID id, UpdateOrderStatusRequest req) {
         Order o = repo.findById(id).orElseThrow(() -> new EntityNotFoundException("Order not found: " + id));
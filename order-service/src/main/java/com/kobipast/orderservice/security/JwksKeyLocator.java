@@ -0,0 +1,143 @@
+package com.kobipast.orderservice.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the verification key for a token's kid from user-service's JWKS endpoint.
+ * Keys are fetched once and cached for the response's max-age; an unknown kid (key rotation)
+ * triggers a re-fetch, but never more often than the configured minimum interval.
+ * Fetches are merged by kid rather than replacing the set: behind a load balancer consecutive fetches
+ * may reach replicas publishing different keys, and a key missing from one response must keep verifying.
+ * A key is dropped once no fetch has returned it for the retention period (a token lifetime).
+ * While user-service is down or slow, a known kid keeps verifying: only one caller waits on a refresh
+ * of an expired set, and a failed fetch is not retried before the minimum interval has passed.
+ */
+@Component
+public class JwksKeyLocator extends LocatorAdapter<Key> {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyLocator.class);
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final RestClient restClient;
+    private final Duration minRefreshInterval;
+    private final Duration keyRetention;
+
+    // a lock, not synchronized: the fetch blocks on HTTP while holding it, which would pin a virtual thread
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private record KnownKey(Key key, Instant lastSeen) {
+    }
+
+    private volatile Map<String, KnownKey> keys = Map.of();
+    private volatile Instant expiresAt = Instant.EPOCH;
+    private volatile Instant lastFetch = Instant.EPOCH;
+
+    public JwksKeyLocator(
+            @Value("${jwt.jwks-uri}") String jwksUri,
+            @Value("${jwt.jwks.min-refresh-interval:PT30S}") Duration minRefreshInterval,
+            @Value("${jwt.jwks.key-retention:PT24H}") Duration keyRetention,
+            @Value("${jwt.jwks.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${jwt.jwks.read-timeout:PT3S}") Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                HttpClient.newBuilder().connectTimeout(connectTimeout).build());
+        requestFactory.setReadTimeout(readTimeout);
+        this.restClient = RestClient.builder().baseUrl(jwksUri).requestFactory(requestFactory).build();
+        this.minRefreshInterval = minRefreshInterval;
+        this.keyRetention = keyRetention;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            return null;
+        }
+
+        KnownKey known = keys.get(kid);
+        if (known == null || Instant.now().isAfter(expiresAt)) {
+            refresh(known == null);
+            known = keys.get(kid);
+        }
+        return known == null ? null : known.key();
+    }
+
+    private void refresh(boolean unknownKid) {
+        if (unknownKid) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            // another caller is refreshing; the key we have is still good to use meanwhile
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            if (unknownKid ? lastFetch.plus(minRefreshInterval).isAfter(now) : now.isBefore(expiresAt)) {
+                // another thread refreshed meanwhile, or we fetched too recently to try again
+                return;
+            }
+            lastFetch = now;
+
+            try {
+                ResponseEntity<String> response = restClient.get().retrieve().toEntity(String.class);
+                JwkSet set = Jwks.setParser().build().parse(response.getBody());
+
+                Map<String, KnownKey> merged = new HashMap<>();
+                Instant horizon = now.minus(keyRetention);
+                keys.forEach((kid, known) -> {
+                    if (known.lastSeen().isAfter(horizon)) {
+                        merged.put(kid, known);
+                    }
+                });
+                for (Jwk<?> jwk : set) {
+                    merged.put(jwk.getId(), new KnownKey(jwk.toKey(), now));
+                }
+                keys = Map.copyOf(merged);
+                expiresAt = now.plus(maxAge(response.getHeaders()));
+                log.info("JwksKeyLocator::refresh fetched {} keys, {} known, cached until {}", set.size(), merged.size(), expiresAt);
+            } catch (Exception ex) {
+                // keep serving the keys we already have; tokens signed by unknown keys will fail.
+                // back off, or every request past max-age would try its own fetch
+                Instant retryAt = now.plus(minRefreshInterval);
+                if (retryAt.isAfter(expiresAt)) {
+                    expiresAt = retryAt;
+                }
+                log.warn("JwksKeyLocator::refresh failed, retrying after {}: {}", expiresAt, ex.getMessage());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Duration maxAge(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            Matcher m = MAX_AGE.matcher(cacheControl);
+            if (m.find()) {
+                return Duration.ofSeconds(Long.parseLong(m.group(1)));
+            }
+        }
+        return minRefreshInterval;
+    }
+}
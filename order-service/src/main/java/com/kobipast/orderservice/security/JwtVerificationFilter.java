@@ -0,0 +1,83 @@
+package com.kobipast.orderservice.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Verifies user-service access tokens locally with the public keys from its JWKS endpoint - no call back
+ * to user-service per request.
+ */
+@Component
+public class JwtVerificationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtVerificationFilter.class);
+
+    private final JwtParser parser;
+    private final boolean required;
+    private final ObjectMapper objectMapper;
+
+    public JwtVerificationFilter(JwksKeyLocator keyLocator, @Value("${jwt.required:false}") boolean required, ObjectMapper objectMapper) {
+        this.parser = Jwts.parser().keyLocator(keyLocator).build();
+        this.required = required;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (required) {
+                unauthorized(request, response, "Missing bearer token");
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            parser.parseSignedClaims(authHeader.substring(7));
+        } catch (JwtException ex) {
+            log.info("JwtVerificationFilter::Rejected token: {}", ex.getMessage());
+            unauthorized(request, response, "Invalid bearer token");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.startsWith("/actuator") || path.startsWith("/h2-console");
+    }
+
+    private void unauthorized(HttpServletRequest request, HttpServletResponse response, String detail) throws IOException {
+        Map<String, Object> pd = new LinkedHashMap<>();
+        pd.put("type", "https://example.com/problems/unauthorized");
+        pd.put("title", "Unauthorized");
+        pd.put("status", HttpStatus.UNAUTHORIZED.value());
+        pd.put("detail", detail);
+        pd.put("instance", request.getRequestURI());
+
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), pd);
+    }
+}
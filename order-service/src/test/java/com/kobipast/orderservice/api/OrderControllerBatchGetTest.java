@@ -0,0 +1,74 @@
+package com.kobipast.orderservice.api;
+
+import com.kobipast.orderservice.dto.CreateOrderRequest;
+import com.kobipast.orderservice.persistence.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.required=false")
+@AutoConfigureMockMvc
+class OrderControllerBatchGetTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    OrderService service;
+
+    @Test
+    void batchGet_returnsOrdersInRequestOrder_andListsMissingIds() throws Exception {
+        UUID first = service.create(new CreateOrderRequest("batch-user", 10)).getId();
+        UUID second = service.create(new CreateOrderRequest("batch-user", 20)).getId();
+        UUID unknown = UUID.randomUUID();
+
+        // duplicates are answered once
+        mvc.perform(post("/orders/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "ids": ["%s", "%s", "%s", "%s"] }
+                                """.formatted(second, unknown, first, second)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders[*].id", contains(second.toString(), first.toString())))
+                .andExpect(jsonPath("$.orders[*].amount", contains(20, 10)))
+                .andExpect(jsonPath("$.missing", contains(unknown.toString())));
+    }
+
+    @Test
+    void batchGet_withOnlyUnknownIds_isStillOk() throws Exception {
+        UUID unknown = UUID.randomUUID();
+
+        mvc.perform(post("/orders/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"ids\": [\"" + unknown + "\"] }"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(0)))
+                .andExpect(jsonPath("$.missing", contains(unknown.toString())));
+    }
+
+    @Test
+    void batchGet_rejectsEmptyAndOversizedBatches() throws Exception {
+        mvc.perform(post("/orders/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"ids\": [] }"))
+                .andExpect(status().isBadRequest());
+
+        String tooMany = String.join("\", \"", Collections.nCopies(201, UUID.randomUUID().toString()));
+        mvc.perform(post("/orders/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"ids\": [\"" + tooMany + "\"] }"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,101 @@
+package com.kobipast.orderservice.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwksKeyLocatorTest {
+
+    private JwksStub userService;
+
+    @AfterEach
+    void tearDown() {
+        userService.close();
+    }
+
+    private JwksKeyLocator locator(Duration minRefreshInterval) {
+        return locator(minRefreshInterval, Duration.ofSeconds(5));
+    }
+
+    private JwksKeyLocator locator(Duration minRefreshInterval, Duration readTimeout) {
+        return new JwksKeyLocator(userService.jwksUri(), minRefreshInterval, Duration.ofHours(24),
+                Duration.ofSeconds(1), readTimeout);
+    }
+
+    private static String subject(JwtParser parser, String token) {
+        return parser.parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Test
+    void fetchesFromDifferentReplicas_areMergedByKid() throws Exception {
+        userService = new JwksStub(2);
+        JwtParser parser = Jwts.parser()
+                .keyLocator(locator(Duration.ZERO))
+                .build();
+
+        // first fetch reaches replica 0, the unknown kid of replica 1 triggers a fetch that reaches replica 1
+        assertEquals("a@example.com", subject(parser, userService.token(0, "a@example.com")));
+        assertEquals("b@example.com", subject(parser, userService.token(1, "b@example.com")));
+
+        // replica 0's key is still known, though the last response did not contain it
+        assertEquals("a@example.com", subject(parser, userService.token(0, "a@example.com")));
+        assertEquals(2, userService.fetches());
+    }
+
+    @Test
+    void failedRefreshOfAnExpiredSet_backsOff_andKnownKeysKeepVerifying() throws Exception {
+        userService = new JwksStub(1);
+        userService.maxAge(0);
+        JwtParser parser = Jwts.parser().keyLocator(locator(Duration.ofMinutes(1))).build();
+        assertEquals("a@example.com", subject(parser, userService.token(0, "a@example.com")));
+
+        // the set is past its max-age and user-service is down
+        userService.failing(true);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("a@example.com", subject(parser, userService.token(0, "a@example.com")));
+        }
+
+        // one failed attempt, then nothing until min-refresh-interval has passed
+        assertEquals(2, userService.fetches());
+    }
+
+    @Test
+    void hungRefresh_holdsUpOnlyTheCallerDoingIt() throws Exception {
+        userService = new JwksStub(1);
+        userService.maxAge(0);
+        JwtParser parser = Jwts.parser().keyLocator(locator(Duration.ofMinutes(1), Duration.ofSeconds(1))).build();
+        String token = userService.token(0, "a@example.com");
+        assertEquals("a@example.com", subject(parser, token));
+
+        userService.delay(Duration.ofSeconds(3));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long start = System.nanoTime();
+            Future<String> refreshing = executor.submit(() -> subject(parser, token));
+            while (userService.fetches() < 2) {
+                Thread.sleep(5);
+            }
+
+            // the key is known: served while the other caller waits on user-service
+            long otherStart = System.nanoTime();
+            assertEquals("a@example.com", subject(parser, token));
+            assertTrue(System.nanoTime() - otherStart < TimeUnit.MILLISECONDS.toNanos(200));
+
+            // the read timeout ends the hung fetch, and the caller still verifies with the known key
+            assertEquals("a@example.com", refreshing.get(3, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2500));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.kobipast.orderservice.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * user-service stand-in: serves a JWKS and signs tokens with the matching keys. Several replicas can be
+ * given, each publishing its own key set; they answer in turn, as behind a round-robin load balancer.
+ */
+public final class JwksStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<KeyPair> replicaKeys = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile int maxAgeSeconds = 300;
+    private volatile boolean failing;
+    private volatile long delayMillis;
+
+    public JwksStub(int replicas) throws IOException {
+        for (int i = 0; i < replicas; i++) {
+            replicaKeys.add(Jwts.SIG.ES256.keyPair().build());
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/.well-known/jwks.json", exchange -> {
+            KeyPair keys = replicaKeys.get(fetches.getAndIncrement() % replicaKeys.size());
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = jwks(keys).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=" + maxAgeSeconds);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    public String jwksUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+    }
+
+    public int fetches() {
+        return fetches.get();
+    }
+
+    public void maxAge(int seconds) {
+        this.maxAgeSeconds = seconds;
+    }
+
+    /** Answers 503 while set, as a user-service that is down. */
+    public void failing(boolean failing) {
+        this.failing = failing;
+    }
+
+    /** Holds every response back this long, as a hung user-service. */
+    public void delay(Duration delay) {
+        this.delayMillis = delay.toMillis();
+    }
+
+    public String token(int replica, String subject) {
+        KeyPair keys = replicaKeys.get(replica);
+        return Jwts.builder()
+                .header().keyId(kid(keys)).and()
+                .subject(subject)
+                .signWith(keys.getPrivate(), Jwts.SIG.ES256)
+                .compact();
+    }
+
+    private static String kid(KeyPair keys) {
+        return Jwks.builder().key(keys.getPublic()).idFromThumbprint().build().getId();
+    }
+
+    private static String jwks(KeyPair keys) {
+        Jwk<?> jwk = Jwks.builder().key(keys.getPublic()).idFromThumbprint().algorithm("ES256").publicKeyUse("sig").build();
+        return JsonMapper.builder().build().writeValueAsString(Map.of("keys", List.of(new LinkedHashMap<>(jwk))));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -1,16 +1,23 @@
 package com.kobipast.userservice.api;
 
+import com.kobipast.userservice.architecture.cache.LoginPrefetcher;
 import com.kobipast.userservice.dto.AuthResponse;
 import com.kobipast.userservice.dto.LoginRequest;
 import com.kobipast.userservice.dto.RegisterRequest;
 import com.kobipast.userservice.dto.UserDto;
 import com.kobipast.userservice.mapper.UserMapper;
-import com.kobipast.userservice.persistence.entity.RefreshToken;
 import com.kobipast.userservice.persistence.entity.Role;
 import com.kobipast.userservice.persistence.entity.User;
 import com.kobipast.userservice.persistence.repository.UserRepository;
 import com.kobipast.userservice.persistence.service.RefreshTokenService;
+import com.kobipast.userservice.persistence.service.RefreshTokenService.IssuedRefreshToken;
+import com.kobipast.userservice.persistence.service.RefreshTokenService.RefreshSession;
+import com.kobipast.userservice.persistence.service.RefreshTokenService.Rotation;
 import com.kobipast.userservice.security.JwtService;
+import com.kobipast.userservice.security.LoginAttemptLimiter;
+import com.kobipast.userservice.security.TokenDenylist;
+import com.kobipast.userservice.security.VerifiedTokenCache;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -24,10 +31,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Duration;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/auth")
@@ -53,6 +62,18 @@ public class AuthController {
     @Autowired
     private RefreshTokenService refreshTokenService;
 
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private LoginPrefetcher loginPrefetcher;
+
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
         log.info("Register request for email: {}", request.getEmail());
@@ -70,7 +91,7 @@ public class AuthController {
         // Generate JWT token
         String token = jwtService.generateToken(user);
 
-        RefreshToken rt = refreshTokenService.create(user);
+        IssuedRefreshToken rt = refreshTokenService.create(user);
 
         ResponseCookie refreshCookie = createRefreshCookie(rt);
 
@@ -83,21 +104,38 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         log.info("Login request for email: {}", request.getEmail());
 
+        // Reject known-bad email/IP before paying for bcrypt or a DB lookup; counts this attempt up front
+        String clientIp = httpRequest.getRemoteAddr();
+        LoginAttemptLimiter.Attempt attempt = loginAttemptLimiter.acquire(request.getEmail(), clientIp);
+
         // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword()
-                )
-        );
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getEmail(),
+                            request.getPassword()
+                    )
+            );
+        } catch (AuthenticationException ex) {
+            loginAttemptLimiter.recordFailure(attempt);
+            throw ex;
+        } catch (RuntimeException ex) {
+            loginAttemptLimiter.release(attempt);
+            throw ex;
+        }
+        loginAttemptLimiter.recordSuccess(attempt);
 
         // Get user from database
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        // warm the user's caches in the background while the response goes out
+        loginPrefetcher.prefetch(user.getId());
+
         // Generate JWT token
         String token = jwtService.generateToken(user);
 
@@ -105,7 +143,7 @@ public class AuthController {
         UserDto userDto = userMapper.toDto(user);
         AuthResponse response = new AuthResponse(token, userDto);
 
-        RefreshToken rt = refreshTokenService.create(user);
+        IssuedRefreshToken rt = refreshTokenService.create(user);
 
         ResponseCookie refreshCookie = createRefreshCookie(rt);
 
@@ -122,11 +160,14 @@ public class AuthController {
                 return unauthorizedWithCookieDeletion();
             }
 
-            RefreshToken rt = refreshTokenService.verify(refreshToken);
-            User user = rt.getUser();
+            // rotation on use: the presented token is spent, the client gets a new one
+            Rotation rotation = refreshTokenService.rotate(refreshToken);
+            RefreshSession session = rotation.session();
 
-            String newAccessToken = jwtService.generateToken(user);
-            return ResponseEntity.ok(new AuthResponse(newAccessToken));
+            String newAccessToken = jwtService.generateToken(session.email(), session.role());
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, createRefreshCookie(rotation.refreshToken()).toString())
+                    .body(new AuthResponse(newAccessToken));
 
         } catch (Exception ex) {
             // any failure during refresh → 401 + delete cookie
@@ -168,6 +209,16 @@ public class AuthController {
             refreshTokenService.deleteByToken(token); // תוסיף מתודה
         }
 
+        // the access token would otherwise stay valid until it expires
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                tokenDenylist.revoke(verifiedTokenCache.verify(authHeader.substring(7)));
+            } catch (JwtException e) {
+                log.debug("Logout with an invalid access token: {}", e.getMessage());
+            }
+        }
+
         ResponseCookie delete = ResponseCookie.from("refreshToken", "")
                 .httpOnly(true)
                 .secure(false)
@@ -181,13 +232,13 @@ public class AuthController {
                 .build();
     }
 
-    ResponseCookie createRefreshCookie (RefreshToken rt){
-        return ResponseCookie.from("refreshToken", rt.getToken())
+    ResponseCookie createRefreshCookie (IssuedRefreshToken rt){
+        return ResponseCookie.from("refreshToken", rt.token())
                 .httpOnly(true)
                 .secure(false)          // dev
                 .path("/api/auth")
                 .sameSite("Lax")
-                .maxAge(Duration.ofDays(7))
+                .maxAge(Duration.between(Instant.now(), rt.expiresAt()))
                 .build();
     }
 
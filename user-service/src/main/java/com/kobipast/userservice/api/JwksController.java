@@ -0,0 +1,32 @@
+package com.kobipast.userservice.api;
+
+import com.kobipast.userservice.security.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    private final Duration maxAge;
+
+    public JwksController(JwtKeyRing keyRing, @Value("${jwt.jwks.max-age:PT5M}") Duration maxAge) {
+        this.keyRing = keyRing;
+        this.maxAge = maxAge;
+    }
+
+    // Public keys only. Verifiers may cache this response; the next signing key is published ahead of use.
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(keyRing.publicJwks());
+    }
+}
@@ -1,5 +1,6 @@
 package com.kobipast.userservice.api;
 
+import com.kobipast.userservice.dto.ChangeRoleRequest;
 import com.kobipast.userservice.dto.CreateUserRequest;
 import com.kobipast.userservice.dto.UpdateUserRequest;
 import com.kobipast.userservice.dto.UserDto;
@@ -7,7 +8,9 @@ import com.kobipast.userservice.mapper.UserMapper;
 import com.kobipast.userservice.persistence.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -69,12 +72,21 @@ public class UserController {
         );
     }
 
+    // PUT /users/{id}/role
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}/role")
+    public UserDto changeRole(@PathVariable String id, @Valid @RequestBody ChangeRoleRequest request) {
+        log.info("UserController::changeRole {} -> {}", id, request.getRole());
+        return userMapper.toDto(userService.changeRole(id, request.getRole()));
+    }
+
     // DELETE /users/{id}
+    @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteUser(@PathVariable String id) {
-        log.debug("UserController::deleteUser {} \n no implementation yet.", id);
-        // no-op (dummy)
+        log.info("UserController::deleteUser {}", id);
+        userService.delete(id);
     }
 
     @GetMapping("/me")
@@ -0,0 +1,68 @@
+package com.kobipast.userservice.architecture;
+
+import com.kobipast.userservice.architecture.dto.ArchitectureResponse;
+import com.kobipast.userservice.architecture.idempotency.Idempotent;
+import com.kobipast.userservice.architecture.integration.OrderClient;
+import com.kobipast.userservice.architecture.integration.dto.CreateOrderRequest;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import com.kobipast.userservice.architecture.integration.dto.UpdateOrderStatusRequest;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Order endpoints for the blocking and virtual modes: the call completes on the request thread, so the
+// response is returned as is, without an async dispatch. See ReactiveArchitectureOrdersController.
+@ConditionalOnExpression("!'${orders.client.mode:blocking}'.equalsIgnoreCase('reactive')")
+@RestController
+@RequestMapping("/architecture")
+public class ArchitectureOrdersController {
+
+    private final OrderClient orderClient;
+
+    public ArchitectureOrdersController(OrderClient orderClient) {
+        this.orderClient = orderClient;
+    }
+
+    @Idempotent
+    @PostMapping("/orders")
+    public ArchitectureResponse createOrder(@RequestBody CreateOrderRequest req) {
+        String userId;
+        if(StringUtils.hasLength(req.userId())){
+            userId = req.userId();
+        }
+        userId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        OrderDto order = orderClient.createOrder(new CreateOrderRequest(userId, req.amount()));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("order", order);
+
+        return new ArchitectureResponse("retry-circuit-breaker", Instant.now(), data);
+    }
+
+    @GetMapping("/orders/{id}")
+    public ArchitectureResponse getOrder(@PathVariable String id, @RequestParam(name = "retry", defaultValue = "true") boolean retry) {
+        OrderDto order;
+        if(retry){
+            order = orderClient.getOrder(id);
+        }
+        else{
+            order = orderClient.getOrderFlat(id);
+        }
+
+        return new ArchitectureResponse("retry-circuit-breaker", Instant.now(), Map.of("order", order));
+    }
+
+    @PatchMapping("/orders/{id}/status")
+    public ArchitectureResponse updateOrderStatus(@PathVariable String id, @Valid @RequestBody UpdateOrderStatusRequest req) {
+        OrderDto order = orderClient.updateStatus(id, new UpdateOrderStatusRequest(req.status(), req.version()));
+
+        return new ArchitectureResponse("optimistic-locking", Instant.now(), Map.of("order", order));
+    }
+}
@@ -0,0 +1,53 @@
+package com.kobipast.userservice.architecture;
+
+import com.kobipast.userservice.architecture.dto.ArchitectureResponse;
+import com.kobipast.userservice.architecture.idempotency.Idempotent;
+import com.kobipast.userservice.architecture.integration.OrderClient;
+import com.kobipast.userservice.architecture.integration.dto.CreateOrderRequest;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import com.kobipast.userservice.architecture.integration.dto.UpdateOrderStatusRequest;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Order endpoints for orders.client.mode=reactive: the pending call is handed to Spring MVC as a Mono,
+// which frees the request thread until order-service answers.
+@ConditionalOnProperty(name = "orders.client.mode", havingValue = "reactive")
+@RestController
+@RequestMapping("/architecture")
+public class ReactiveArchitectureOrdersController {
+
+    private final OrderClient orderClient;
+
+    public ReactiveArchitectureOrdersController(OrderClient orderClient) {
+        this.orderClient = orderClient;
+    }
+
+    @Idempotent
+    @PostMapping("/orders")
+    public Mono<ArchitectureResponse> createOrder(@RequestBody CreateOrderRequest req) {
+        // read on the request thread; the order is always placed for the caller
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        return orderClient.createOrderAsync(new CreateOrderRequest(userId, req.amount()))
+                .map(order -> new ArchitectureResponse("retry-circuit-breaker", Instant.now(), Map.of("order", order)));
+    }
+
+    @GetMapping("/orders/{id}")
+    public Mono<ArchitectureResponse> getOrder(@PathVariable String id, @RequestParam(name = "retry", defaultValue = "true") boolean retry) {
+        Mono<OrderDto> order = retry ? orderClient.getOrderAsync(id) : orderClient.getOrderFlatAsync(id);
+
+        return order.map(o -> new ArchitectureResponse("retry-circuit-breaker", Instant.now(), Map.of("order", o)));
+    }
+
+    @PatchMapping("/orders/{id}/status")
+    public Mono<ArchitectureResponse> updateOrderStatus(@PathVariable String id, @Valid @RequestBody UpdateOrderStatusRequest req) {
+        return orderClient.updateStatusAsync(id, new UpdateOrderStatusRequest(req.status(), req.version()))
+                .map(order -> new ArchitectureResponse("optimistic-locking", Instant.now(), Map.of("order", order)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rough retained size in bytes of a cached key + value, so {@code max-weight} bounds memory rather than
+ * entry count. Walks strings, maps and collections; anything else counts as a small fixed-size object.
+ */
+final class ApproximateSizeWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT = 16;
+    private static final int REFERENCE = 8;
+    private static final int MAX_DEPTH = 8;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long size = sizeOf(key, 0) + sizeOf(value, 0);
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    static long sizeOf(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (depth > MAX_DEPTH) {
+            return OBJECT;
+        }
+        if (value instanceof CharSequence s) {
+            return 40 + 2L * s.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 48 + 16L * map.size();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                size += 32 + sizeOf(e.getKey(), depth + 1) + sizeOf(e.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40 + (long) REFERENCE * collection.size();
+            for (Object element : collection) {
+                size += sizeOf(element, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT + bytes.length;
+        }
+        return OBJECT + REFERENCE;
+    }
+}
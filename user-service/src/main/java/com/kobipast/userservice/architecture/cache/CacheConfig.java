@@ -0,0 +1,73 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded Caffeine caches for {@code @Cacheable}. Caffeine's W-TinyLFU admission keeps the frequently
+ * used entries when the cache is full, so a scan of one-off keys can't flush the hot set.
+ * Caches with a {@code refresh-after} serve stale entries while reloading them, see {@link RefreshAheadCache}.
+ * Caches with an {@code off-heap} capacity keep what the heap evicts in direct memory, see {@link OffHeapTier}.
+ * Explicit evictions are broadcast to the other instances, see {@link CacheInvalidationBus}.
+ * Hit/miss/eviction/load stats are recorded and published by the actuator as {@code cache.*} metrics.
+ */
+@Configuration
+@EnableConfigurationProperties(CachingProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CachingProperties properties,
+                                     CacheInvalidationBus invalidationBus,
+                                     CacheInstrumentation instrumentation,
+                                     MeterRegistry meterRegistry,
+                                     @Qualifier("applicationTaskExecutor") Executor refreshExecutor) {
+        Map<String, OffHeapTier> offHeapTiers = new ConcurrentHashMap<>();
+        CaffeineCacheManager manager = new CaffeineCacheManager() {
+            @Override
+            protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+                CachingProperties.Spec spec = properties.specFor(name);
+                if (spec.offHeap() == null) {
+                    return builder(spec).expireAfterWrite(spec.ttl()).build();
+                }
+                OffHeapTier tier = new OffHeapTier(name, spec.offHeap().toBytes(),
+                        (int) properties.offHeapSlabSize().toBytes(), meterRegistry);
+                offHeapTiers.put(name, tier);
+                return tier.buildHeapTier(builder(spec), spec.ttl());
+            }
+
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                Duration refreshAfter = properties.specFor(name).refreshAfter();
+                CacheInstrumentation.Probe probe = instrumentation.probe(name);
+                OffHeapTier offHeap = offHeapTiers.get(name);
+                return refreshAfter == null
+                        ? new NearCache(name, cache, isAllowNullValues(), invalidationBus, probe, offHeap)
+                        : new RefreshAheadCache(name, cache, isAllowNullValues(), invalidationBus, probe, offHeap,
+                                refreshAfter, refreshExecutor);
+            }
+        };
+        // configured caches exist (and are bound to metrics) from the start; any other name is created
+        // on first use with the defaults
+        properties.caches().keySet().forEach(manager::getCache);
+        return manager;
+    }
+
+    private static Caffeine<Object, Object> builder(CachingProperties.Spec spec) {
+        return Caffeine.newBuilder()
+                .maximumWeight(spec.maxWeight().toBytes())
+                .weigher(new ApproximateSizeWeigher())
+                .recordStats();
+    }
+}
@@ -15,7 +15,8 @@ public class CacheDemoService {
 
     private static final Logger log = LoggerFactory.getLogger(CacheDemoService.class);
 
-    @Cacheable(cacheNames = "demoProfile", key = "#userId")
+    // sync: concurrent misses for one userId share a single load
+    @Cacheable(cacheNames = "demoProfile", key = "#userId", sync = true)
     public Map<String, Object> getProfile(String userId) {
         // simulate expensive work
         log.info("CacheDemoService.getProfile executed for userId={}", userId);
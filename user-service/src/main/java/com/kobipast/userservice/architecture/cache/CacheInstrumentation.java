@@ -0,0 +1,65 @@
+package com.kobipast.userservice.architecture.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What Caffeine's own stats don't cover: load latency percentiles, stale reads and the hottest keys,
+ * per cache. Read by {@link CacheStatsEndpoint}.
+ */
+@Component
+public class CacheInstrumentation {
+
+    private final MeterRegistry meterRegistry;
+    private final int sketchWidth;
+    private final int topKeys;
+    private final Map<String, Probe> probes = new ConcurrentHashMap<>();
+
+    public CacheInstrumentation(MeterRegistry meterRegistry,
+                                @Value("${caching.stats.sketch-width:2048}") int sketchWidth,
+                                @Value("${caching.stats.top-keys:10}") int topKeys) {
+        this.meterRegistry = meterRegistry;
+        this.sketchWidth = sketchWidth;
+        this.topKeys = topKeys;
+    }
+
+    Probe probe(String cacheName) {
+        return probes.computeIfAbsent(cacheName, name -> new Probe(
+                Timer.builder("cache.load.latency")
+                        .tag("cache", name)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry),
+                new HotKeySketch(sketchWidth, topKeys)));
+    }
+
+    static final class Probe {
+
+        final Timer loadLatency;
+        final HotKeySketch hotKeys;
+        final LongAdder staleReads = new LongAdder();
+
+        private Probe(Timer loadLatency, HotKeySketch hotKeys) {
+            this.loadLatency = loadLatency;
+            this.hotKeys = hotKeys;
+        }
+
+        void recordAccess(Object key) {
+            hotKeys.record(String.valueOf(key));
+        }
+
+        void recordLoad(long nanos) {
+            loadLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        void recordStale() {
+            staleReads.increment();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.kobipast.userservice.architecture.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link NearCache}s of all instances consistent.
+ * Local evictions are queued and flushed as one compact message per interval (or as soon as
+ * {@code max-batch} keys are pending); repeated evictions of a key and keys of a cache that is cleared
+ * anyway collapse into one entry. Incoming messages from other instances are applied locally.
+ * Keys travel as strings; an eviction by any other key type clears that cache on the peers.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final UUID instanceId = UUID.randomUUID();
+    private final InvalidationTransport transport;
+    private final int maxBatch;
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    // guarded by "this"
+    private Map<String, Set<String>> pendingKeys = new HashMap<>();
+    private Set<String> pendingClears = new HashSet<>();
+    private int pendingCount;
+
+    private final Counter sentMessages;
+    private final Counter sentKeys;
+    private final Counter receivedMessages;
+    private final Counter appliedKeys;
+
+    public CacheInvalidationBus(InvalidationTransport transport,
+                                MeterRegistry meterRegistry,
+                                @Value("${caching.invalidation.max-batch:1000}") int maxBatch) {
+        this.transport = transport;
+        this.maxBatch = maxBatch;
+        this.sentMessages = Counter.builder("cache.invalidation.messages").tag("direction", "out").register(meterRegistry);
+        this.sentKeys = Counter.builder("cache.invalidation.keys").tag("direction", "out").register(meterRegistry);
+        this.receivedMessages = Counter.builder("cache.invalidation.messages").tag("direction", "in").register(meterRegistry);
+        this.appliedKeys = Counter.builder("cache.invalidation.keys").tag("direction", "in").register(meterRegistry);
+        transport.subscribe(this::receive);
+    }
+
+    void attach(NearCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void evicted(String cacheName, Object key) {
+        if (!(key instanceof String k)) {
+            cleared(cacheName);
+            return;
+        }
+        boolean full;
+        synchronized (this) {
+            if (pendingClears.contains(cacheName) || !pendingKeys.computeIfAbsent(cacheName, c -> new LinkedHashSet<>()).add(k)) {
+                return;
+            }
+            full = ++pendingCount >= maxBatch;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    synchronized void cleared(String cacheName) {
+        Set<String> dropped = pendingKeys.remove(cacheName);
+        if (dropped != null) {
+            pendingCount -= dropped.size();
+        }
+        pendingClears.add(cacheName);
+    }
+
+    @Scheduled(fixedDelayString = "${caching.invalidation.flush-interval:PT0.1S}")
+    @PreDestroy
+    public void flush() {
+        Map<String, Set<String>> keys;
+        Set<String> clears;
+        int count;
+        synchronized (this) {
+            if (pendingKeys.isEmpty() && pendingClears.isEmpty()) {
+                return;
+            }
+            keys = pendingKeys;
+            clears = pendingClears;
+            count = pendingCount;
+            pendingKeys = new HashMap<>();
+            pendingClears = new HashSet<>();
+            pendingCount = 0;
+        }
+        try {
+            transport.publish(new InvalidationMessage(instanceId, keys, clears).encode());
+            sentMessages.increment();
+            sentKeys.increment(count);
+        } catch (RuntimeException e) {
+            // peers keep the entries until their TTL; retrying would reorder against newer evictions
+            log.warn("CacheInvalidationBus::flush dropped {} keys and {} clears", count, clears.size(), e);
+        }
+    }
+
+    private void receive(byte[] payload) {
+        InvalidationMessage message = InvalidationMessage.decode(payload);
+        if (instanceId.equals(message.origin())) {
+            return;
+        }
+        receivedMessages.increment();
+        message.clearedCaches().forEach(name -> {
+            NearCache cache = caches.get(name);
+            if (cache != null) {
+                cache.clearLocally();
+            }
+        });
+        message.evictedKeys().forEach((name, keys) -> {
+            NearCache cache = caches.get(name);
+            if (cache != null) {
+                keys.forEach(cache::evictLocally);
+                appliedKeys.increment(keys.size());
+            }
+        });
+    }
+}
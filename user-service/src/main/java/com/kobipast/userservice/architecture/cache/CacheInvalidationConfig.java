@@ -0,0 +1,25 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheInvalidationConfig {
+
+    // loopback: in-process only (single node, tests); jdbc: instances sharing the database poll a table
+    @Bean
+    public InvalidationTransport invalidationTransport(
+            CacheInvalidationEntryRepository repo,
+            @Value("${caching.invalidation.transport:loopback}") String type,
+            @Value("${caching.invalidation.jdbc.poll-batch:500}") int pollBatch,
+            @Value("${caching.invalidation.jdbc.retention:PT5M}") Duration retention) {
+        return switch (type) {
+            case "loopback" -> new LoopbackInvalidationTransport();
+            case "jdbc" -> new JdbcInvalidationTransport(repo, pollBatch, retention);
+            default -> throw new IllegalStateException("Unsupported caching.invalidation.transport: " + type);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.kobipast.userservice.architecture.cache;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// One published InvalidationMessage, read by every instance polling the table.
+@Entity
+@Table(
+        name = "cache_invalidation",
+        indexes = @Index(name = "ix_cache_inval_created_at", columnList = "createdAt")
+)
+public class CacheInvalidationEntry {
+
+    // polled in id order, so it has to be monotonic rather than random
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 65_536)
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CacheInvalidationEntryRepository extends JpaRepository<CacheInvalidationEntry, Long> {
+
+    List<CacheInvalidationEntry> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("select coalesce(max(e.id), 0) from CacheInvalidationEntry e")
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from CacheInvalidationEntry e where e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
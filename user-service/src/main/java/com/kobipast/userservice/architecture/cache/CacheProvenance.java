@@ -0,0 +1,39 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Where the cached data in the current response came from, recorded by the cache on each lookup and
+ * written out as {@value #HEADER} by {@link CacheProvenanceAdvice}. With several lookups in one request
+ * the weakest outcome wins: any miss makes it MISS, otherwise any stale read makes it STALE.
+ */
+public final class CacheProvenance {
+
+    public static final String HEADER = "X-Cache";
+
+    private static final String ATTRIBUTE = CacheProvenance.class.getName();
+
+    // ordered from best to worst
+    public enum Outcome { HIT, STALE, MISS }
+
+    private CacheProvenance() {
+    }
+
+    static void record(Outcome outcome) {
+        // background reloads and non-web callers have no request to annotate
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Outcome current = (Outcome) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (current == null || outcome.compareTo(current) > 0) {
+            attributes.setAttribute(ATTRIBUTE, outcome, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static Outcome current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (Outcome) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
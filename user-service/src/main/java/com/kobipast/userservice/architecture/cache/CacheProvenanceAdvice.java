@@ -0,0 +1,30 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Adds X-Cache: HIT | STALE | MISS to responses whose handler went through a cache.
+@RestControllerAdvice
+public class CacheProvenanceAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        CacheProvenance.Outcome outcome = CacheProvenance.current();
+        if (outcome != null) {
+            response.getHeaders().set(CacheProvenance.HEADER, outcome.name());
+        }
+        return body;
+    }
+}
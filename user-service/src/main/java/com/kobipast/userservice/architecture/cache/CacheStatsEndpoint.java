@@ -0,0 +1,109 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// GET /actuator/cachestats[/{cache}] - per-cache hit ratio, load latency, size, weight, off-heap use and hottest keys.
+// ADMIN only (see SecurityConfig). Keys are user ids, so hot keys are reported by fingerprint: the first
+// 12 hex digits of the key's SHA-256, which an operator can match against a suspected key.
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    private final CacheManager cacheManager;
+    private final CacheInstrumentation instrumentation;
+
+    public CacheStatsEndpoint(CacheManager cacheManager, CacheInstrumentation instrumentation) {
+        this.cacheManager = cacheManager;
+        this.instrumentation = instrumentation;
+    }
+
+    @ReadOperation
+    public Map<String, Object> caches() {
+        Map<String, Object> result = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Map<String, Object> stats = stats(name);
+            if (stats != null) {
+                result.put(name, stats);
+            }
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cache(@Selector String name) {
+        return stats(name);
+    }
+
+    private Map<String, Object> stats(String name) {
+        // getCache would create an unknown cache on the fly
+        if (!cacheManager.getCacheNames().contains(name) || !(cacheManager.getCache(name) instanceof CaffeineCache caffeine)) {
+            return null;
+        }
+        Cache<Object, Object> cache = caffeine.getNativeCache();
+        CacheStats stats = cache.stats();
+        CacheInstrumentation.Probe probe = instrumentation.probe(name);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", stats.requestCount());
+        result.put("hitRatio", stats.hitRate());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("staleReads", probe.staleReads.sum());
+        result.put("evictions", stats.evictionCount());
+        result.put("size", cache.estimatedSize());
+        cache.policy().eviction().ifPresent(eviction -> {
+            eviction.weightedSize().ifPresent(weight -> result.put("weight", weight));
+            result.put("maxWeight", eviction.getMaximum());
+        });
+        if (caffeine instanceof NearCache near && near.offHeap != null) {
+            result.put("offHeap", Map.of(
+                    "entries", near.offHeap.size(),
+                    "allocatedBytes", near.offHeap.allocatedBytes(),
+                    "capacityBytes", near.offHeap.capacityBytes()));
+        }
+        result.put("loadLatencyMs", latency(probe.loadLatency.takeSnapshot()));
+        result.put("hotKeys", probe.hotKeys.top().stream()
+                .map(e -> Map.of("keyFingerprint", fingerprint(e.getKey()), "estimatedAccesses", e.getValue()))
+                .toList());
+        return result;
+    }
+
+    static String fingerprint(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> latency(HistogramSnapshot snapshot) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", snapshot.count());
+        latency.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile p : List.of(snapshot.percentileValues())) {
+            latency.put("p" + Math.round(p.percentile() * 100), p.value(TimeUnit.MILLISECONDS));
+        }
+        latency.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        return latency;
+    }
+}
@@ -0,0 +1,12 @@
+package com.kobipast.userservice.architecture.cache;
+
+/**
+ * Knows how to load one entry of a cache by key, so {@link CacheWarmup} can replay a hot-key snapshot
+ * through the normal {@code @Cacheable} path.
+ */
+public interface CacheWarmer {
+
+    String cacheName();
+
+    void warm(String key);
+}
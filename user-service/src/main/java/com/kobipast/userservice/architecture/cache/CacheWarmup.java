@@ -0,0 +1,168 @@
+package com.kobipast.userservice.architecture.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache warm-up across restarts.
+ * The hottest keys of every cache that has a {@link CacheWarmer} are snapshotted periodically (by Caffeine's
+ * frequency estimate, hottest first) to a {@link HotKeySnapshotStore}. The default store writes files under
+ * {@code caching.warmup.store.directory}, which has to survive the restart (a volume, in a container); the
+ * {@code jpa} store needs a durable database - with the default in-memory H2 its snapshot dies with the instance.
+ * On startup the last snapshot is replayed through the warmers before the instance reports ready: runners
+ * finish before readiness flips to ACCEPTING_TRAFFIC, and this indicator keeps the readiness group
+ * OUT_OF_SERVICE meanwhile.
+ * The replay is bounded by {@code timeout}; whatever isn't warm by then loads on first use as before.
+ */
+@Component
+public class CacheWarmup implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private enum State { PENDING, WARMING, DONE }
+
+    private final List<CacheWarmer> warmers;
+    private final CacheManager cacheManager;
+    private final HotKeySnapshotStore snapshots;
+    private final boolean enabled;
+    private final int maxKeys;
+    private final int parallelism;
+    private final Duration timeout;
+
+    private final Counter warmed;
+    private final Counter failed;
+
+    private volatile State state = State.PENDING;
+    private volatile int planned;
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile Duration took;
+
+    public CacheWarmup(List<CacheWarmer> warmers,
+                       CacheManager cacheManager,
+                       HotKeySnapshotStore snapshots,
+                       MeterRegistry meterRegistry,
+                       @Value("${caching.warmup.enabled:true}") boolean enabled,
+                       @Value("${caching.warmup.max-keys:200}") int maxKeys,
+                       @Value("${caching.warmup.parallelism:8}") int parallelism,
+                       @Value("${caching.warmup.timeout:PT30S}") Duration timeout) {
+        this.warmers = warmers;
+        this.cacheManager = cacheManager;
+        this.snapshots = snapshots;
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+        this.warmed = Counter.builder("cache.warmup.keys").tag("result", "loaded").register(meterRegistry);
+        this.failed = Counter.builder("cache.warmup.keys").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            state = State.DONE;
+            return;
+        }
+        warm();
+    }
+
+    /**
+     * Replays the last snapshot of every warmable cache and waits for it, at most {@code timeout}.
+     */
+    public void warm() throws InterruptedException {
+        state = State.WARMING;
+        completed.set(0);
+        long start = System.nanoTime();
+
+        List<Runnable> loads = new ArrayList<>();
+        for (CacheWarmer warmer : warmers) {
+            for (String key : snapshots.load(warmer.cacheName(), maxKeys)) {
+                loads.add(() -> load(warmer, key));
+            }
+        }
+        planned = loads.size();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            loads.forEach(pool::execute);
+            pool.shutdown();
+            if (!pool.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("CacheWarmup::warm timed out after {} with {}/{} keys loaded", timeout, completed.get(), planned);
+            }
+        } finally {
+            pool.shutdownNow();
+            took = Duration.ofNanos(System.nanoTime() - start);
+            state = State.DONE;
+        }
+        log.info("CacheWarmup::warm loaded {}/{} keys in {}", completed.get(), planned, took);
+    }
+
+    @Scheduled(fixedDelayString = "${caching.warmup.snapshot-interval:PT5M}",
+            initialDelayString = "${caching.warmup.snapshot-interval:PT5M}")
+    public void snapshot() {
+        for (CacheWarmer warmer : warmers) {
+            List<String> hottest = hottestKeys(warmer.cacheName());
+            // an instance that has barely served anything must not wipe a useful snapshot
+            if (hottest.isEmpty()) {
+                continue;
+            }
+            snapshots.replace(warmer.cacheName(), hottest);
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = state == State.DONE ? Health.up() : Health.outOfService();
+        health.withDetail("state", state.name())
+                .withDetail("keys", planned)
+                .withDetail("loaded", completed.get());
+        if (took != null) {
+            health.withDetail("took", took.toString());
+        }
+        return health.build();
+    }
+
+    private void load(CacheWarmer warmer, String key) {
+        try {
+            warmer.warm(key);
+            completed.incrementAndGet();
+            warmed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.debug("CacheWarmup::load {} {} failed", warmer.cacheName(), key, e);
+        }
+    }
+
+    private List<String> hottestKeys(String cacheName) {
+        if (!cacheManager.getCacheNames().contains(cacheName)
+                || !(cacheManager.getCache(cacheName) instanceof CaffeineCache cache)) {
+            return List.of();
+        }
+        return cache.getNativeCache().policy().eviction()
+                .map(eviction -> eviction.hottest(maxKeys).keySet().stream()
+                        .filter(String.class::isInstance)
+                        .map(String.class::cast)
+                        // what either store can hold: one line, within the cache_hot_key column
+                        .filter(key -> key.length() <= 200 && key.indexOf('\n') < 0 && key.indexOf('\r') < 0)
+                        .toList())
+                .orElse(List.of());
+    }
+}
@@ -0,0 +1,50 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-cache limits for {@link CacheConfig}. Caches not listed under {@code caches} get {@code defaults};
+ * a listed cache inherits whatever it leaves out.
+ *
+ * @param offHeapSlabSize size of each direct buffer an {@link OffHeapTier} allocates; also the largest
+ *                        serialized value it accepts
+ */
+@ConfigurationProperties(prefix = "caching")
+public record CachingProperties(Spec defaults, Map<String, Spec> caches, DataSize offHeapSlabSize) {
+
+    private static final Spec FALLBACK = new Spec(Duration.ofMinutes(10), DataSize.ofMegabytes(16), null, null);
+
+    public CachingProperties {
+        defaults = defaults == null ? FALLBACK : defaults.orElse(FALLBACK);
+        caches = caches == null ? Map.of() : caches;
+        offHeapSlabSize = offHeapSlabSize == null ? DataSize.ofMegabytes(1) : offHeapSlabSize;
+    }
+
+    Spec specFor(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        return spec == null ? defaults : spec.orElse(defaults);
+    }
+
+    /**
+     * @param ttl          time to live after the entry is written; past it a read waits for the loader
+     * @param maxWeight    bound on the approximate retained size of the cache, see {@link ApproximateSizeWeigher}
+     * @param refreshAfter soft TTL: older entries are still served but reloaded in the background,
+     *                     see {@link RefreshAheadCache}; unset means no refresh-ahead
+     * @param offHeap      capacity of the off-heap tier that takes the heap's size evictions,
+     *                     see {@link OffHeapTier}; unset means no off-heap tier
+     */
+    public record Spec(Duration ttl, DataSize maxWeight, Duration refreshAfter, DataSize offHeap) {
+
+        Spec orElse(Spec fallback) {
+            return new Spec(
+                    ttl != null ? ttl : fallback.ttl(),
+                    maxWeight != null ? maxWeight : fallback.maxWeight(),
+                    refreshAfter != null ? refreshAfter : fallback.refreshAfter(),
+                    offHeap != null ? offHeap : fallback.offHeap());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.stereotype.Component;
+
+@Component
+public class DemoProfileWarmer implements CacheWarmer {
+
+    private final CacheDemoService cacheDemoService;
+
+    public DemoProfileWarmer(CacheDemoService cacheDemoService) {
+        this.cacheDemoService = cacheDemoService;
+    }
+
+    @Override
+    public String cacheName() {
+        return "demoProfile";
+    }
+
+    @Override
+    public void warm(String userId) {
+        cacheDemoService.getProfile(userId);
+    }
+}
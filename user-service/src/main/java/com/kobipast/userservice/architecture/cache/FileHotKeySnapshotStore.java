@@ -0,0 +1,65 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+// One file per cache, a key per line, hottest first; replaced atomically so a reader never sees half a snapshot.
+public class FileHotKeySnapshotStore implements HotKeySnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileHotKeySnapshotStore.class);
+
+    private final Path directory;
+
+    public FileHotKeySnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public List<String> load(String cacheName, int maxKeys) {
+        try (var lines = Files.lines(file(cacheName), StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isEmpty()).limit(maxKeys).toList();
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException | RuntimeException e) {
+            log.warn("FileHotKeySnapshotStore::load {} failed, starting cold: {}", cacheName, e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public void replace(String cacheName, List<String> hottestFirst) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, cacheName, ".tmp");
+            try {
+                Files.write(tmp, hottestFirst, StandardCharsets.UTF_8);
+                move(tmp, file(cacheName));
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.warn("FileHotKeySnapshotStore::replace {} failed, keeping the previous snapshot: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private Path file(String cacheName) {
+        return directory.resolve(cacheName.replaceAll("[^A-Za-z0-9._-]", "_") + ".keys");
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.kobipast.userservice.architecture.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate top-N most accessed keys in bounded memory.
+ * A count-min sketch estimates every key's frequency. A key already in the top-N has its count raised
+ * in place without locking; only a new key whose estimate beats the smallest of the top-N takes the
+ * lock to enter it. Counters are halved every {@code 10 x width} accesses, so the list follows the
+ * recent access pattern instead of all-time totals.
+ */
+final class HotKeySketch {
+
+    private static final int DEPTH = 4;
+
+    private final int width;
+    private final int topN;
+    private final AtomicLongArray counters;
+    private final long sampleSize;
+    private final AtomicLong accesses = new AtomicLong();
+
+    // membership changes under "this"; counts of members only grow between agings and are raised without it
+    private final Map<String, AtomicLong> top = new ConcurrentHashMap<>();
+    // the smallest member as of the last admission; members may have been raised past it since,
+    // so the threshold is a lower bound and the entry is re-checked before it is evicted
+    private String coldest;
+    private volatile long admissionThreshold;
+
+    HotKeySketch(int width, int topN) {
+        this.width = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.topN = topN;
+        this.counters = new AtomicLongArray(DEPTH * this.width);
+        this.sampleSize = 10L * this.width;
+    }
+
+    void record(String key) {
+        long h = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * width + index(h, row)));
+        }
+        AtomicLong member = top.get(key);
+        if (member != null) {
+            member.accumulateAndGet(estimate, Math::max);
+        } else if (topN > 0 && estimate > admissionThreshold) {
+            offer(key, estimate);
+        }
+        if (accesses.incrementAndGet() % sampleSize == 0) {
+            age();
+        }
+    }
+
+    List<Map.Entry<String, Long>> top() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(top.size());
+        top.forEach((key, count) -> entries.add(Map.entry(key, count.get())));
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return entries;
+    }
+
+    private synchronized void offer(String key, long estimate) {
+        if (top.containsKey(key)) {
+            top.get(key).accumulateAndGet(estimate, Math::max);
+            return;
+        }
+        if (top.size() < topN) {
+            top.put(key, new AtomicLong(estimate));
+            if (top.size() == topN) {
+                findColdest();
+            }
+            return;
+        }
+        if (top.get(coldest).get() != admissionThreshold) {
+            // the recorded minimum was raised in place; find the real one before evicting
+            findColdest();
+            if (estimate <= admissionThreshold) {
+                return;
+            }
+        }
+        top.remove(coldest);
+        top.put(key, new AtomicLong(estimate));
+        findColdest();
+    }
+
+    // only on admissions, never on the access path of a member
+    private void findColdest() {
+        String min = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, AtomicLong> e : top.entrySet()) {
+            long count = e.getValue().get();
+            if (count < minCount) {
+                min = e.getKey();
+                minCount = count;
+            }
+        }
+        coldest = min;
+        admissionThreshold = min == null ? 0 : minCount;
+    }
+
+    private synchronized void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, c -> c >>> 1);
+        }
+        top.values().forEach(count -> count.updateAndGet(c -> c >>> 1));
+        if (top.size() == topN) {
+            findColdest();
+        } else {
+            admissionThreshold = 0;
+        }
+    }
+
+    private int index(long hash, int row) {
+        // double hashing over the two halves of one 64-bit hash
+        int h = (int) hash + row * (int) (hash >>> 32);
+        return (h ^ (h >>> 16)) & (width - 1);
+    }
+
+    // 64-bit FNV-1a followed by a murmur3 finalizer, as in TokenDenylist's filter
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,62 @@
+package com.kobipast.userservice.architecture.cache;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One key of a cache's last hot-key snapshot, for JpaHotKeySnapshotStore.
+@Entity
+@Table(
+        name = "cache_hot_key",
+        indexes = @Index(name = "ix_cache_hot_key_cache_rank", columnList = "cacheName, rank")
+)
+public class HotKeySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 100)
+    private String cacheName;
+
+    @Column(nullable = false, length = 200)
+    private String cacheKey;
+
+    // 0 = hottest
+    @Column(nullable = false)
+    private int rank;
+
+    @Column(nullable = false)
+    private Instant capturedAt;
+
+    protected HotKeySnapshot() {
+    }
+
+    public HotKeySnapshot(String cacheName, String cacheKey, int rank, Instant capturedAt) {
+        this.cacheName = cacheName;
+        this.cacheKey = cacheKey;
+        this.rank = rank;
+        this.capturedAt = capturedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+}
@@ -0,0 +1,19 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface HotKeySnapshotRepository extends JpaRepository<HotKeySnapshot, UUID> {
+
+    List<HotKeySnapshot> findByCacheNameOrderByRankAsc(String cacheName, Limit limit);
+
+    @Modifying
+    @Query("delete from HotKeySnapshot s where s.cacheName = :cacheName")
+    int deleteByCacheName(@Param("cacheName") String cacheName);
+}
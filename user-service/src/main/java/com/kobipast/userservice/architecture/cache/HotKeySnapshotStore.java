@@ -0,0 +1,20 @@
+package com.kobipast.userservice.architecture.cache;
+
+import java.util.List;
+
+/**
+ * Where {@link CacheWarmup} keeps the last hot-key snapshot of each cache. It has to outlive the
+ * instance that wrote it, or a restart has nothing to replay.
+ */
+public interface HotKeySnapshotStore {
+
+    /**
+     * The keys of the last snapshot, hottest first; empty if there is none.
+     */
+    List<String> load(String cacheName, int maxKeys);
+
+    /**
+     * Replaces the cache's snapshot with these keys, hottest first.
+     */
+    void replace(String cacheName, List<String> hottestFirst);
+}
@@ -0,0 +1,26 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+@Configuration
+public class HotKeySnapshotStoreConfig {
+
+    // file: a directory on this instance (default); jpa: the cache_hot_key table, for a durable shared database
+    @Bean
+    public HotKeySnapshotStore hotKeySnapshotStore(
+            HotKeySnapshotRepository repo,
+            PlatformTransactionManager transactionManager,
+            @Value("${caching.warmup.store.type:file}") String type,
+            @Value("${caching.warmup.store.directory:data/cache-warmup}") Path directory) {
+        return switch (type) {
+            case "file" -> new FileHotKeySnapshotStore(directory);
+            case "jpa" -> new JpaHotKeySnapshotStore(repo, transactionManager);
+            default -> throw new IllegalStateException("Unsupported caching.warmup.store.type: " + type);
+        };
+    }
+}
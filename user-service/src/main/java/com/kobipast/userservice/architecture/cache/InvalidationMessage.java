@@ -0,0 +1,78 @@
+package com.kobipast.userservice.architecture.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * One flushed batch of evictions from one instance.
+ * Wire layout: version | origin (16 bytes) | cache count | per cache: name, cleared flag, key count, keys.
+ * A cleared cache carries no keys.
+ */
+record InvalidationMessage(UUID origin, Map<String, Set<String>> evictedKeys, Set<String> clearedCaches) {
+
+    private static final byte VERSION = 1;
+
+    byte[] encode() {
+        Set<String> caches = new LinkedHashSet<>(evictedKeys.keySet());
+        caches.addAll(clearedCaches);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(origin.getMostSignificantBits());
+            out.writeLong(origin.getLeastSignificantBits());
+            out.writeInt(caches.size());
+            for (String cache : caches) {
+                out.writeUTF(cache);
+                boolean cleared = clearedCaches.contains(cache);
+                out.writeBoolean(cleared);
+                Set<String> keys = cleared ? Set.of() : evictedKeys.get(cache);
+                out.writeInt(keys.size());
+                for (String key : keys) {
+                    out.writeUTF(key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static InvalidationMessage decode(byte[] message) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown invalidation message version " + version);
+            }
+            UUID origin = new UUID(in.readLong(), in.readLong());
+            Map<String, Set<String>> evictedKeys = new LinkedHashMap<>();
+            Set<String> clearedCaches = new LinkedHashSet<>();
+            int caches = in.readInt();
+            for (int i = 0; i < caches; i++) {
+                String cache = in.readUTF();
+                if (in.readBoolean()) {
+                    clearedCaches.add(cache);
+                }
+                int keyCount = in.readInt();
+                Set<String> keys = new LinkedHashSet<>();
+                for (int k = 0; k < keyCount; k++) {
+                    keys.add(in.readUTF());
+                }
+                if (!keys.isEmpty()) {
+                    evictedKeys.put(cache, keys);
+                }
+            }
+            return new InvalidationMessage(origin, evictedKeys, clearedCaches);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed invalidation message", e);
+        }
+    }
+}
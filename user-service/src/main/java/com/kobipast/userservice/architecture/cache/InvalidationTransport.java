@@ -0,0 +1,14 @@
+package com.kobipast.userservice.architecture.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded {@link InvalidationMessage}s between instances. Delivery is best effort and may
+ * include the sender's own messages; the bus drops those by origin.
+ */
+public interface InvalidationTransport {
+
+    void publish(byte[] message);
+
+    void subscribe(Consumer<byte[]> listener);
+}
@@ -0,0 +1,86 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Transport over a shared table: publishing inserts a row, every instance polls for rows past the
+ * last id it has seen. Good enough for local multi-instance runs without a broker.
+ * An insert that commits after a higher id was already read is missed; the cache TTL bounds how long
+ * that leaves an entry stale.
+ */
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationTransport.class);
+
+    private final CacheInvalidationEntryRepository repo;
+    private final int pollBatch;
+    private final Duration retention;
+    private final List<Consumer<byte[]>> listeners = new CopyOnWriteArrayList<>();
+
+    // start at the tail on the first poll - there is nothing to invalidate in caches that were just created
+    // a lock, not synchronized: the poll does JDBC while holding it, which would pin a virtual thread
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private long lastSeenId = -1;
+
+    public JdbcInvalidationTransport(CacheInvalidationEntryRepository repo, int pollBatch, Duration retention) {
+        this.repo = repo;
+        this.pollBatch = pollBatch;
+        this.retention = retention;
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        CacheInvalidationEntry entry = new CacheInvalidationEntry();
+        entry.setPayload(message);
+        entry.setCreatedAt(Instant.now());
+        repo.save(entry);
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${caching.invalidation.jdbc.poll-interval:PT1S}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            if (lastSeenId < 0) {
+                lastSeenId = repo.findMaxId();
+                return;
+            }
+            List<CacheInvalidationEntry> entries;
+            do {
+                entries = repo.findByIdGreaterThanOrderByIdAsc(lastSeenId, Limit.of(pollBatch));
+                for (CacheInvalidationEntry entry : entries) {
+                    lastSeenId = entry.getId();
+                    for (Consumer<byte[]> listener : listeners) {
+                        try {
+                            listener.accept(entry.getPayload());
+                        } catch (RuntimeException e) {
+                            log.warn("JdbcInvalidationTransport::poll listener failed on message {}", entry.getId(), e);
+                        }
+                    }
+                }
+            } while (entries.size() == pollBatch);
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    // every instance prunes; the delete is idempotent, so overlapping runs are harmless
+    @Scheduled(fixedDelayString = "${caching.invalidation.jdbc.retention:PT5M}")
+    public void prune() {
+        repo.deleteOlderThan(Instant.now().minus(retention));
+    }
+}
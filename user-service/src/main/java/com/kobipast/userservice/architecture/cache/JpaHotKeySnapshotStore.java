@@ -0,0 +1,39 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// The cache_hot_key table: shared by every instance on the database, and durable only if the database is.
+public class JpaHotKeySnapshotStore implements HotKeySnapshotStore {
+
+    private final HotKeySnapshotRepository snapshots;
+    private final TransactionTemplate tx;
+
+    public JpaHotKeySnapshotStore(HotKeySnapshotRepository snapshots, PlatformTransactionManager transactionManager) {
+        this.snapshots = snapshots;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public List<String> load(String cacheName, int maxKeys) {
+        return snapshots.findByCacheNameOrderByRankAsc(cacheName, Limit.of(maxKeys)).stream()
+                .map(HotKeySnapshot::getCacheKey)
+                .toList();
+    }
+
+    @Override
+    public void replace(String cacheName, List<String> hottestFirst) {
+        Instant now = Instant.now();
+        tx.executeWithoutResult(status -> {
+            snapshots.deleteByCacheName(cacheName);
+            snapshots.saveAll(IntStream.range(0, hottestFirst.size())
+                    .mapToObj(rank -> new HotKeySnapshot(cacheName, hottestFirst.get(rank), rank, now))
+                    .toList());
+        });
+    }
+}
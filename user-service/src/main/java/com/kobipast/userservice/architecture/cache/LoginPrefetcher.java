@@ -0,0 +1,60 @@
+package com.kobipast.userservice.architecture.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Loads what a user is about to ask for right after they log in, off the login request's thread,
+ * so the first page after login doesn't pay for cold caches.
+ */
+@Component
+public class LoginPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginPrefetcher.class);
+
+    private final CacheDemoService cacheDemoService;
+    private final Executor executor;
+    private final boolean enabled;
+    private final Counter prefetched;
+    private final Counter failed;
+
+    public LoginPrefetcher(CacheDemoService cacheDemoService,
+                           @Qualifier("applicationTaskExecutor") Executor executor,
+                           MeterRegistry meterRegistry,
+                           @Value("${caching.prefetch-on-login:true}") boolean enabled) {
+        this.cacheDemoService = cacheDemoService;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.prefetched = Counter.builder("cache.prefetch").tag("result", "loaded").register(meterRegistry);
+        this.failed = Counter.builder("cache.prefetch").tag("result", "failed").register(meterRegistry);
+    }
+
+    public void prefetch(String userId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    // a no-op when the profile is already cached
+                    cacheDemoService.getProfile(userId);
+                    prefetched.increment();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    log.debug("LoginPrefetcher::prefetch failed for {}", userId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // best effort - the request path loads it anyway
+            failed.increment();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * A local Caffeine cache whose explicit evictions and clears are broadcast to the other instances
+ * through the {@link CacheInvalidationBus}. Size and TTL evictions stay local, and so do puts:
+ * a peer picks up the new value on its next miss.
+ * With an {@link OffHeapTier}, entries the heap evicts for size are still served from it until they
+ * expire, and a hit moves the entry back on-heap with the expiry it already had. Explicit evictions
+ * drop the off-heap copy before the heap one, so a promotion racing an evict cannot bring the evicted
+ * value back.
+ * Every lookup is also recorded: its outcome for {@link CacheProvenance}, the key for the hot-key sketch
+ * and load times for {@link CacheInstrumentation}.
+ */
+class NearCache extends CaffeineCache {
+
+    private final CacheInvalidationBus bus;
+    final CacheInstrumentation.Probe probe;
+    // null when the cache has no off-heap tier
+    final OffHeapTier offHeap;
+
+    NearCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+              CacheInvalidationBus bus, CacheInstrumentation.Probe probe, OffHeapTier offHeap) {
+        super(name, cache, allowNullValues);
+        this.bus = bus;
+        this.probe = probe;
+        this.offHeap = offHeap;
+        bus.attach(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        probe.recordAccess(key);
+        // callers that wait on another caller's load count as misses too - they paid for it
+        boolean present = getNativeCache().policy().getIfPresentQuietly(key) != null;
+        if (!present && offHeap != null) {
+            Object promoted = promote(key);
+            if (promoted != null) {
+                CacheProvenance.record(CacheProvenance.Outcome.HIT);
+                return (T) fromStoreValue(promoted);
+            }
+        }
+        T value = super.get(key, timed(valueLoader));
+        CacheProvenance.record(present ? CacheProvenance.Outcome.HIT : CacheProvenance.Outcome.MISS);
+        return value;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        probe.recordAccess(key);
+        Object value = super.lookup(key);
+        if (value == null && offHeap != null) {
+            value = promote(key);
+        }
+        CacheProvenance.record(value != null ? CacheProvenance.Outcome.HIT : CacheProvenance.Outcome.MISS);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        dropOffHeap(key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        dropOffHeap(key);
+        super.evict(key);
+        bus.evicted(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = dropOffHeap(key) | super.evictIfPresent(key);
+        // absent here doesn't mean absent on the other instances
+        bus.evicted(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        clearOffHeap();
+        super.clear();
+        bus.cleared(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        clearOffHeap();
+        boolean notEmpty = super.invalidate();
+        bus.cleared(getName());
+        return notEmpty;
+    }
+
+    <T> Callable<T> timed(Callable<T> valueLoader) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                probe.recordLoad(System.nanoTime() - start);
+            }
+        };
+    }
+
+    // since the entry was written; a promotion from off-heap doesn't make it younger
+    Optional<Duration> ageOf(Object key) {
+        return offHeap != null
+                ? offHeap.ageOf(getNativeCache(), key)
+                : getNativeCache().policy().expireAfterWrite().flatMap(policy -> policy.ageOf(key));
+    }
+
+    // applying a peer's message must not echo it back
+    void evictLocally(String key) {
+        dropOffHeap(key);
+        super.evict(key);
+    }
+
+    void clearLocally() {
+        clearOffHeap();
+        super.clear();
+    }
+
+    // whatever is on-heap by now (a load or put that got there first) wins over the off-heap copy
+    private Object promote(Object key) {
+        return getNativeCache().asMap().computeIfAbsent(key, offHeap::take);
+    }
+
+    private boolean dropOffHeap(Object key) {
+        return offHeap != null && offHeap.remove(key);
+    }
+
+    private void clearOffHeap() {
+        if (offHeap != null) {
+            offHeap.clear();
+        }
+    }
+}
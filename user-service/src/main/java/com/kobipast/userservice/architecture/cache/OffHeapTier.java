@@ -0,0 +1,278 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Second tier for entries the on-heap cache evicts for size: values are serialized into direct
+ * {@link ByteBuffer} slabs, outside the GC-managed heap, and only a small index entry per key stays on it.
+ * Slabs are filled in turn and recycled whole, oldest first, once the capacity is used up - no
+ * per-entry free lists or compaction. Entries keep the expiry they had on-heap, and keep it again when
+ * a hit promotes them back: an entry moving between the tiers still expires when it was written plus the ttl.
+ * Values must be {@link java.io.Serializable}; anything else is simply not demoted.
+ */
+final class OffHeapTier {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapTier.class);
+
+    private record Location(Slab slab, long generation, int offset, int length, long expiresAtNanos) {}
+
+    private static final class Slab {
+
+        private final ByteBuffer buffer;
+        // readers copy under the read lock; recycling takes the write lock
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Object> keys = new ArrayList<>();
+        private long generation;
+        private int position;
+
+        Slab(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    private final String cacheName;
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Map<Object, Location> index = new ConcurrentHashMap<>();
+    // remaining lifetime (nanos) of an entry being promoted, from take() to the heap tier's expiry
+    private final Map<Object, Long> promoting = new ConcurrentHashMap<>();
+    private Duration ttl;
+
+    // guarded by "this": only the demoting (eviction) side writes
+    private final List<Slab> slabs = new ArrayList<>();
+    private int current = -1;
+
+    private final Counter demotions;
+    private final Counter hits;
+
+    OffHeapTier(String cacheName, long capacityBytes, int slabSize, MeterRegistry meterRegistry) {
+        this.cacheName = cacheName;
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.max(1, capacityBytes / slabSize);
+        this.demotions = Counter.builder("cache.offheap.demotions").tag("cache", cacheName).register(meterRegistry);
+        this.hits = Counter.builder("cache.offheap.hits").tag("cache", cacheName).register(meterRegistry);
+        Gauge.builder("cache.offheap.entries", index, Map::size).tag("cache", cacheName).register(meterRegistry);
+        Gauge.builder("cache.offheap.allocated", this, OffHeapTier::allocatedBytes).tag("cache", cacheName)
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Builds the heap tier with an eviction listener that demotes size evictions into this tier.
+     * Writes expire after the ttl; entries promoted by {@link #take} get back only the time they had left.
+     *
+     * @param builder without an expiry of its own
+     */
+    Cache<Object, Object> buildHeapTier(Caffeine<Object, Object> builder, Duration ttl) {
+        this.ttl = ttl;
+        AtomicReference<Cache<Object, Object>> heap = new AtomicReference<>();
+        Cache<Object, Object> cache = builder
+                .expireAfter(new Expiry<Object, Object>() {
+                    @Override
+                    public long expireAfterCreate(Object key, Object value, long currentTime) {
+                        Long remaining = promoting.remove(key);
+                        return remaining != null ? remaining : ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                        return ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .evictionListener((Object key, Object value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && value != null) {
+                        // the listener runs before the entry leaves the map, so its expiry is still known
+                        heap.get().policy().expireVariably()
+                                .flatMap(policy -> policy.getExpiresAfter(key))
+                                .ifPresent(remaining -> demote(key, value, remaining));
+                    }
+                })
+                .build();
+        heap.set(cache);
+        return cache;
+    }
+
+    /**
+     * Takes over an entry the heap tier dropped.
+     *
+     * @param remaining time the entry had left before it would have expired on-heap
+     */
+    void demote(Object key, Object storeValue, Duration remaining) {
+        if (remaining.isNegative() || remaining.isZero()) {
+            return;
+        }
+        byte[] bytes = serialize(storeValue);
+        if (bytes == null || bytes.length > slabSize) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + remaining.toNanos();
+        synchronized (this) {
+            Slab slab = slabWithRoom(bytes.length);
+            slab.buffer.put(slab.position, bytes);
+            slab.keys.add(key);
+            // the index put publishes the bytes to readers
+            index.put(key, new Location(slab, slab.generation, slab.position, bytes.length, expiresAt));
+            slab.position += bytes.length;
+        }
+        demotions.increment();
+    }
+
+    /**
+     * @return the stored value, or null when absent, expired or already overwritten by slab recycling
+     */
+    Object get(Object key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (System.nanoTime() - location.expiresAtNanos() >= 0) {
+            index.remove(key, location);
+            return null;
+        }
+        return read(location);
+    }
+
+    /**
+     * Removes the entry and returns its value; null in the same cases as {@link #get}.
+     * Only for the mapping function of the heap tier's {@code computeIfAbsent}: the entry it creates
+     * right after, under the key's lock, takes over the remaining lifetime.
+     */
+    Object take(Object key) {
+        Location location = index.remove(key);
+        if (location == null) {
+            return null;
+        }
+        long remaining = location.expiresAtNanos() - System.nanoTime();
+        if (remaining <= 0) {
+            return null;
+        }
+        Object value = read(location);
+        if (value != null) {
+            promoting.put(key, remaining);
+        }
+        return value;
+    }
+
+    /**
+     * Age of an entry in the heap tier, counted from its original write, also after promotions.
+     */
+    Optional<Duration> ageOf(Cache<Object, Object> heapTier, Object key) {
+        return heapTier.policy().expireVariably()
+                .flatMap(policy -> policy.getExpiresAfter(key))
+                .map(remaining -> ttl.minus(remaining));
+    }
+
+    private Object read(Location location) {
+        byte[] bytes = new byte[location.length()];
+        Slab slab = location.slab();
+        slab.lock.readLock().lock();
+        try {
+            if (slab.generation != location.generation()) {
+                return null;
+            }
+            slab.buffer.get(location.offset(), bytes);
+        } finally {
+            slab.lock.readLock().unlock();
+        }
+        Object value = deserialize(bytes);
+        if (value != null) {
+            hits.increment();
+        }
+        return value;
+    }
+
+    boolean remove(Object key) {
+        return index.remove(key) != null;
+    }
+
+    void clear() {
+        index.clear();
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    synchronized long allocatedBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    long capacityBytes() {
+        return (long) maxSlabs * slabSize;
+    }
+
+    private Slab slabWithRoom(int length) {
+        if (current >= 0 && slabs.get(current).position + length <= slabSize) {
+            return slabs.get(current);
+        }
+        current = (current + 1) % maxSlabs;
+        if (current == slabs.size()) {
+            // allocated lazily, so an idle tier costs nothing
+            slabs.add(new Slab(slabSize));
+            return slabs.get(current);
+        }
+        Slab oldest = slabs.get(current);
+        oldest.lock.writeLock().lock();
+        try {
+            for (Object key : oldest.keys) {
+                index.computeIfPresent(key, (k, location) -> location.slab() == oldest ? null : location);
+            }
+            oldest.keys.clear();
+            oldest.generation++;
+            oldest.position = 0;
+        } finally {
+            oldest.lock.writeLock().unlock();
+        }
+        return oldest;
+    }
+
+    private byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (NotSerializableException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("OffHeapTier::demote {} could not serialize a value", cacheName, e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("OffHeapTier::get {} could not deserialize a value", cacheName, e);
+            return null;
+        }
+    }
+}
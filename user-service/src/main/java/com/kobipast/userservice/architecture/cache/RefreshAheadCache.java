@@ -0,0 +1,74 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Stale-while-revalidate on top of a Caffeine cache.
+ * Once an entry is older than {@code refreshAfter} (the soft TTL) a read still returns it right away,
+ * and a single background reload per key replaces it. Only the hard TTL
+ * ever makes a caller wait for the loader.
+ * Needs a value loader, i.e. {@code @Cacheable(sync = true)}; plain lookups behave as usual.
+ */
+class RefreshAheadCache extends NearCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final Duration refreshAfter;
+    private final Executor executor;
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    RefreshAheadCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                      CacheInvalidationBus bus, CacheInstrumentation.Probe probe, OffHeapTier offHeap,
+                      Duration refreshAfter, Executor executor) {
+        super(name, cache, allowNullValues, bus, probe, offHeap);
+        this.refreshAfter = refreshAfter;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // a miss is computed once per key, concurrent callers wait on that one load
+        T value = super.get(key, valueLoader);
+        if (isStale(key)) {
+            probe.recordStale();
+            CacheProvenance.record(CacheProvenance.Outcome.STALE);
+            refresh(key, valueLoader);
+        }
+        return value;
+    }
+
+    private boolean isStale(Object key) {
+        return ageOf(key).map(age -> age.compareTo(refreshAfter) >= 0).orElse(false);
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Object fresh = toStoreValue(timed(valueLoader).call());
+                    // an evict while the reload ran wins; don't bring the entry back
+                    getNativeCache().asMap().computeIfPresent(key, (k, stale) -> fresh);
+                } catch (Exception e) {
+                    // keep serving the stale value until the hard TTL; the next read retries
+                    log.warn("RefreshAheadCache::refresh {} failed for key {}", getName(), key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+}
@@ -1,4 +1,3 @@
 package com.kobipast.userservice.architecture.dto;
 
-public record IdempotencyResponse(String message, boolean replay) {}
-
+public record IdempotencyResponse(String id, String message) {}
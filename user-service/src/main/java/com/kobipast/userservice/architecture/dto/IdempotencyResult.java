@@ -1,3 +0,0 @@
-package com.kobipast.userservice.architecture.dto;
-
-public record IdempotencyResult<T>(int statusCode, T body, boolean replay) {}
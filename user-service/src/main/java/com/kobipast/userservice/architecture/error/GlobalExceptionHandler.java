@@ -1,8 +1,11 @@
 package com.kobipast.userservice.architecture.error;
 
 import com.kobipast.userservice.architecture.idempotency.IdempotencyConflictException;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyKeyRequiredException;
 import com.kobipast.userservice.architecture.integration.error.DownstreamProblemException;
 import com.kobipast.userservice.architecture.observability.CorrelationIdFilter;
+import com.kobipast.userservice.security.LoginAttemptsExceededException;
+import com.kobipast.userservice.security.PasswordHashingRejectedException;
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 import io.github.resilience4j.ratelimiter.RequestNotPermitted;
@@ -103,6 +106,44 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    @ExceptionHandler(IdempotencyKeyRequiredException.class)
+    public ProblemDetail handleIdempotencyKeyRequired(IdempotencyKeyRequiredException ex, HttpServletRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        pd.setType(URI.create("https://example.com/problems/idempotency-key-required"));
+        pd.setTitle("Idempotency-Key required");
+        pd.setDetail(ex.getMessage());
+        pd.setInstance(URI.create(request.getRequestURI()));
+        pd.setProperty("correlationId", MDC.get("correlationId"));
+        return pd;
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ProblemDetail> handlePasswordHashingRejected(PasswordHashingRejectedException ex, HttpServletRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        pd.setType(URI.create("https://example.com/problems/auth-overloaded"));
+        pd.setTitle("Service Unavailable");
+        pd.setDetail("Too many concurrent sign-in requests. Please retry shortly.");
+        pd.setInstance(URI.create(request.getRequestURI()));
+        pd.setProperty("correlationId", MDC.get("correlationId"));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(pd);
+    }
+
+    @ExceptionHandler(LoginAttemptsExceededException.class)
+    public ResponseEntity<ProblemDetail> handleLoginAttemptsExceeded(LoginAttemptsExceededException ex, HttpServletRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+        pd.setType(URI.create("https://example.com/problems/login-attempts"));
+        pd.setTitle("Too Many Requests");
+        pd.setDetail("Too many failed login attempts. Please retry later.");
+        pd.setInstance(URI.create(request.getRequestURI()));
+        pd.setProperty("correlationId", MDC.get("correlationId"));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(pd);
+    }
 
     @ExceptionHandler(DownstreamProblemException.class)
     public ResponseEntity<String> handleDownstreamProblem(DownstreamProblemException ex) {
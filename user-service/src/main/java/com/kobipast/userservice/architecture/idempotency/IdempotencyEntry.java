@@ -0,0 +1,22 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A stored response for one scope + Idempotency-Key.
+ * {@code requestDigest} is the SHA-256 of the request body. {@code headers} are the replayable response
+ * headers (see {@link IdempotencyFilter}) and {@code payload} is the response body as sent on the wire.
+ */
+public record IdempotencyEntry(
+        byte[] requestDigest,
+        int statusCode,
+        String contentType,
+        Map<String, String> headers,
+        byte[] payload,
+        Instant expiresAt
+) {
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
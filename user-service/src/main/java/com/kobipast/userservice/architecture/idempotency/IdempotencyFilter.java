@@ -0,0 +1,267 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.CapturedResponse;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawExchange;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawOutcome;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Applies {@link Idempotent} to controller methods at the byte level.
+ * Runs after the security filter chain, so keys are scoped to the authenticated caller.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    // the idempotency_records.scope column
+    private static final int MAX_SCOPE_LENGTH = 200;
+    // describe the stored response itself; per-exchange headers (cookies, correlation id, X-Cache) are not replayed
+    private static final List<String> REPLAYED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.LOCATION, HttpHeaders.CONTENT_LOCATION, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES, HttpHeaders.VARY, HttpHeaders.CONTENT_LANGUAGE);
+    private static final String ASYNC_CAPTURE_ATTRIBUTE = IdempotencyFilter.class.getName() + ".asyncCapture";
+
+    private final IdempotencyService idempotencyService;
+    private final HandlerMapping handlerMapping;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public IdempotencyFilter(
+            IdempotencyService idempotencyService,
+            @Lazy @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping,
+            @Lazy @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.idempotencyService = idempotencyService;
+        this.handlerMapping = handlerMapping;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    // without a key only an @Idempotent(required = true) handler has anything to do, and it is checked for unsafe methods
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !StringUtils.hasText(request.getHeader(KEY_HEADER)) && isSafe(request.getMethod());
+    }
+
+    // async handlers write their response in a later dispatch, which is where it gets captured
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            resumeAsync(request, response, filterChain);
+            return;
+        }
+
+        HandlerMethod handler = resolveHandler(request);
+        Idempotent idempotent = handler == null ? null : handler.getMethodAnnotation(Idempotent.class);
+        if (idempotent == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(KEY_HEADER);
+        if (!StringUtils.hasText(key)) {
+            if (idempotent.required()) {
+                exceptionResolver.resolveException(request, response, handler,
+                        new IdempotencyKeyRequiredException(KEY_HEADER + " header is required for this endpoint."));
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        HashingRequestWrapper hashingRequest = new HashingRequestWrapper(request);
+        ContentCachingResponseWrapper capturingResponse = new ContentCachingResponseWrapper(response);
+        CompletableFuture<RawOutcome> pending;
+        try {
+            pending = idempotencyService.executeRaw(key, scope(idempotent, handler, request), new RawExchange() {
+                @Override
+                public byte[] requestDigest() throws IOException {
+                    return hashingRequest.drainAndHash();
+                }
+
+                @Override
+                public CompletionStage<CapturedResponse> proceed() throws IOException, ServletException {
+                    filterChain.doFilter(hashingRequest, capturingResponse);
+                    if (request.isAsyncStarted()) {
+                        AsyncCapture capture = new AsyncCapture(capturingResponse);
+                        request.setAttribute(ASYNC_CAPTURE_ATTRIBUTE, capture);
+                        request.getAsyncContext().addListener(capture);
+                        return capture.response;
+                    }
+                    return CompletableFuture.completedFuture(capture(capturingResponse));
+                }
+            });
+        } catch (IdempotencyConflictException ex) {
+            // rendered by GlobalExceptionHandler like any other conflict
+            exceptionResolver.resolveException(request, response, handler, ex);
+            return;
+        }
+
+        if (!pending.isDone()) {
+            // stored and copied to the client by resumeAsync
+            return;
+        }
+        RawOutcome outcome = join(pending);
+        if (!outcome.replay()) {
+            capturingResponse.copyBodyToResponse();
+            return;
+        }
+
+        CapturedResponse replay = outcome.response();
+        response.setStatus(replay.statusCode());
+        if (replay.contentType() != null) {
+            response.setContentType(replay.contentType());
+        }
+        replay.headers().forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(replay.body().length);
+        response.getOutputStream().write(replay.body());
+    }
+
+    private void resumeAsync(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        AsyncCapture capture = (AsyncCapture) request.getAttribute(ASYNC_CAPTURE_ATTRIBUTE);
+        if (capture == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            capture.response.completeExceptionally(e);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            return;
+        }
+
+        capture.response.complete(capture(capture.wrapper));
+        capture.wrapper.copyBodyToResponse();
+    }
+
+    private static CapturedResponse capture(ContentCachingResponseWrapper response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_RESPONSE_HEADERS) {
+            Collection<String> values = response.getHeaders(name);
+            if (!values.isEmpty()) {
+                headers.put(name, String.join(", ", values));
+            }
+        }
+        return new CapturedResponse(response.getStatus(), response.getContentType(), headers, response.getContentAsByteArray());
+    }
+
+    private static RawOutcome join(CompletableFuture<RawOutcome> outcome) {
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    // Carries the capturing wrapper from the initial dispatch to the one that writes the response.
+    // If the async request ends without such a dispatch (client gone, container error) the key is released as failed.
+    private static final class AsyncCapture implements AsyncListener {
+
+        private final ContentCachingResponseWrapper wrapper;
+        private final CompletableFuture<CapturedResponse> response = new CompletableFuture<>();
+
+        AsyncCapture(ContentCachingResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            response.completeExceptionally(new IllegalStateException("Async request completed before its response was captured"));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            response.completeExceptionally(event.getThrowable() != null ? event.getThrowable() : new IllegalStateException("Async request failed"));
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // listeners are dropped when async restarts; stay registered for the next round
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private HandlerMethod resolveHandler(HttpServletRequest request) throws ServletException {
+        try {
+            HandlerExecutionChain chain = handlerMapping.getHandler(request);
+            return chain != null && chain.getHandler() instanceof HandlerMethod hm ? hm : null;
+        } catch (Exception e) {
+            throw new ServletException("Failed to resolve handler for idempotency", e);
+        }
+    }
+
+    private static String scope(Idempotent idempotent, HandlerMethod handler, HttpServletRequest request) {
+        String scope = StringUtils.hasText(idempotent.scope())
+                ? idempotent.scope()
+                : request.getMethod() + ":" + handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String caller = auth != null && auth.isAuthenticated() ? auth.getName() : "anonymous";
+        String scoped = scope + "|" + caller;
+        // a long caller name must not make the record unstorable; its digest keeps callers apart just as well
+        return scoped.length() <= MAX_SCOPE_LENGTH ? scoped : "sha256:" + sha256Hex(scoped);
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) || "TRACE".equals(method);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+public class IdempotencyKeyRequiredException extends RuntimeException {
+    public IdempotencyKeyRequiredException(String message) {
+        super(message);
+    }
+}
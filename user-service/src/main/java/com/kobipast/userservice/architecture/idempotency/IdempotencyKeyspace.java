@@ -0,0 +1,24 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+/**
+ * Partitioning of the idempotency keyspace.
+ * Every scope + key maps to one of {@link #SHARDS} fixed logical shards. The shard is stored with the
+ * record and leads its unique index, so the table can be partitioned by it. The mapping only depends
+ * on the key, so it is the same on every instance.
+ */
+public final class IdempotencyKeyspace {
+
+    public static final int SHARDS = 256;
+
+    private IdempotencyKeyspace() {
+    }
+
+    public static int shardOf(String scope, String idempotencyKey) {
+        // String.hashCode is specified, so this is stable across JVMs; the mix spreads similar keys
+        int h = 31 * scope.hashCode() + idempotencyKey.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h & (SHARDS - 1);
+    }
+}
@@ -7,7 +7,10 @@ import java.util.UUID;
 @Entity
 @Table(
         name = "idempotency_records",
-        uniqueConstraints = @UniqueConstraint(name = "uk_idempo_key_scope", columnNames = {"idempotencyKey", "scope"})
+        // shard leads the key so a partitioned table (PARTITION BY shard) keeps the constraint partition-local
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempo_shard_key_scope", columnNames = {"shard", "idempotencyKey", "scope"}),
+        // expiry order for the background sweep - lookups never scan by time
+        indexes = @Index(name = "ix_idempo_expires_at", columnList = "expiresAt")
 )
 public class IdempotencyRecord {
 
@@ -15,6 +18,9 @@ public class IdempotencyRecord {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    // see IdempotencyKeyspace; null on rows written before the column existed
+    private Integer shard;
+
     @Column(nullable = false, length = 100)
     private String idempotencyKey;
 
@@ -22,14 +28,22 @@ public class IdempotencyRecord {
     @Column(nullable = false, length = 200)
     private String scope;
 
-    @Column(nullable = false, length = 64)
+    // SHA-256 of the request body, as 32 raw bytes
+    @Column(length = 32)
+    private byte[] requestDigest;
+
+    // status, content type, codec and body - see IdempotencyResponseCodec
+    @Column(length = 1_048_576)
+    private byte[] response;
+
+    // Legacy format (hex hash, status column, JSON text). Still read for rows written before the
+    // binary format; cleared whenever such a row is overwritten.
+    @Column(length = 64)
     private String requestHash;
 
-    @Column(nullable = false)
-    private int statusCode;
+    private Integer statusCode;
 
     @Lob
-    @Column(nullable = false)
     private String responseBodyJson;
 
     @Column(nullable = false)
@@ -46,6 +60,14 @@ public class IdempotencyRecord {
         this.id = id;
     }
 
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
     public String getIdempotencyKey() {
         return idempotencyKey;
     }
@@ -62,6 +84,22 @@ public class IdempotencyRecord {
         this.scope = scope;
     }
 
+    public byte[] getRequestDigest() {
+        return requestDigest;
+    }
+
+    public void setRequestDigest(byte[] requestDigest) {
+        this.requestDigest = requestDigest;
+    }
+
+    public byte[] getResponse() {
+        return response;
+    }
+
+    public void setResponse(byte[] response) {
+        this.response = response;
+    }
+
     public String getRequestHash() {
         return requestHash;
     }
@@ -70,11 +108,11 @@ public class IdempotencyRecord {
         this.requestHash = requestHash;
     }
 
-    public int getStatusCode() {
+    public Integer getStatusCode() {
         return statusCode;
     }
 
-    public void setStatusCode(int statusCode) {
+    public void setStatusCode(Integer statusCode) {
         this.statusCode = statusCode;
     }
 
@@ -1,11 +1,30 @@
 package com.kobipast.userservice.architecture.idempotency;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
-    Optional<IdempotencyRecord> findByIdempotencyKeyAndScope(String idempotencyKey, String scope);
-    void deleteByExpiresAtBefore(java.time.Instant now);
+    Optional<IdempotencyRecord> findByShardAndIdempotencyKeyAndScope(int shard, String idempotencyKey, String scope);
+
+    // rows from before the shard column
+    Optional<IdempotencyRecord> findByShardIsNullAndIdempotencyKeyAndScope(String idempotencyKey, String scope);
+
+    boolean existsByShardIsNull();
+
+    // oldest first, a range scan on ix_idempo_expires_at
+    @Query("select r.id from IdempotencyRecord r where r.expiresAt < :now order by r.expiresAt")
+    List<UUID> findExpiredIds(@Param("now") Instant now, Limit limit);
+
+    // re-checks expiry: a stale row may have been overwritten in place since its id was selected
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id in :ids and r.expiresAt < :now")
+    int deleteExpired(@Param("ids") List<UUID> ids, @Param("now") Instant now);
 }
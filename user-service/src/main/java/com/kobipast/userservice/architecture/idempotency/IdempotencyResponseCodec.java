@@ -0,0 +1,160 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stored form of a response: a small binary header followed by the (possibly deflated) body.
+ * <pre>
+ * version:1 | codec:1 | status:2 | contentTypeLength:1 | contentType (UTF-8)
+ *   | headerCount:1 | (nameLength:1 | name | valueLength:2 | value)* | bodyLength:4 | body
+ * </pre>
+ * {@code bodyLength} is the uncompressed length, so decoding allocates exactly once.
+ * Version 1 had no header section and is still read.
+ */
+class IdempotencyResponseCodec {
+
+    record Decoded(int statusCode, String contentType, Map<String, String> headers, byte[] body) {}
+
+    static final byte VERSION = 2;
+    static final byte VERSION_WITHOUT_HEADERS = 1;
+    static final byte CODEC_IDENTITY = 0;
+    static final byte CODEC_DEFLATE = 1;
+
+    private final int minCompressSize;
+
+    IdempotencyResponseCodec(int minCompressSize) {
+        this.minCompressSize = minCompressSize;
+    }
+
+    byte[] encode(int statusCode, String contentType, Map<String, String> headers, byte[] body) {
+        byte[] type = contentType == null ? new byte[0] : contentType.getBytes(StandardCharsets.UTF_8);
+        if (type.length > 255) {
+            throw new IllegalArgumentException("Content type too long to store: " + contentType);
+        }
+        if (headers.size() > 255) {
+            throw new IllegalArgumentException("Too many headers to store: " + headers.size());
+        }
+        byte[][] names = new byte[headers.size()][];
+        byte[][] values = new byte[headers.size()][];
+        int headerBytes = 0;
+        int i = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            names[i] = header.getKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = header.getValue().getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 255 || values[i].length > 0xFFFF) {
+                throw new IllegalArgumentException("Header too long to store: " + header.getKey());
+            }
+            headerBytes += 1 + names[i].length + 2 + values[i].length;
+            i++;
+        }
+
+        byte codec = CODEC_IDENTITY;
+        byte[] stored = body;
+        if (body.length >= minCompressSize) {
+            byte[] deflated = deflate(body);
+            // small or already-compressed bodies can grow; keep whichever is smaller
+            if (deflated.length < body.length) {
+                codec = CODEC_DEFLATE;
+                stored = deflated;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(1 + 1 + 2 + 1 + type.length + 1 + headerBytes + 4 + stored.length)
+                .put(VERSION)
+                .put(codec)
+                .putShort((short) statusCode)
+                .put((byte) type.length)
+                .put(type)
+                .put((byte) names.length);
+        for (int h = 0; h < names.length; h++) {
+            buf.put((byte) names[h].length).put(names[h]).putShort((short) values[h].length).put(values[h]);
+        }
+        return buf.putInt(body.length)
+                .put(stored)
+                .array();
+    }
+
+    Decoded decode(byte[] stored) {
+        ByteBuffer buf = ByteBuffer.wrap(stored);
+        byte version = buf.get();
+        if (version != VERSION && version != VERSION_WITHOUT_HEADERS) {
+            throw new IllegalStateException("Unknown idempotency response format version " + version);
+        }
+        byte codec = buf.get();
+        int statusCode = Short.toUnsignedInt(buf.getShort());
+        byte[] type = new byte[Byte.toUnsignedInt(buf.get())];
+        buf.get(type);
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (version != VERSION_WITHOUT_HEADERS) {
+            for (int count = Byte.toUnsignedInt(buf.get()); count > 0; count--) {
+                String name = string(buf, Byte.toUnsignedInt(buf.get()));
+                headers.put(name, string(buf, Short.toUnsignedInt(buf.getShort())));
+            }
+        }
+        int bodyLength = buf.getInt();
+
+        byte[] body = switch (codec) {
+            case CODEC_IDENTITY -> {
+                byte[] raw = new byte[bodyLength];
+                buf.get(raw);
+                yield raw;
+            }
+            case CODEC_DEFLATE -> inflate(buf, bodyLength);
+            default -> throw new IllegalStateException("Unknown idempotency response codec " + codec);
+        };
+        return new Decoded(statusCode, type.length == 0 ? null : new String(type, StandardCharsets.UTF_8), headers, body);
+    }
+
+    private static String string(ByteBuffer buf, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 16);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int bodyLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] body = new byte[bodyLength];
+            int n = 0;
+            while (n < bodyLength && !inflater.finished()) {
+                int read = inflater.inflate(body, n, bodyLength - n);
+                if (read == 0 && inflater.needsInput()) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != bodyLength) {
+                throw new IllegalStateException("Truncated idempotency response: " + n + " of " + bodyLength + " bytes");
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt idempotency response", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
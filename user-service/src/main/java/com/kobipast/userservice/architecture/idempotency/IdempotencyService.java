@@ -1,102 +1,185 @@
 package com.kobipast.userservice.architecture.idempotency;
 
 
-import com.kobipast.userservice.architecture.dto.IdempotencyResult;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import tools.jackson.databind.ObjectMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
 import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HexFormat;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class IdempotencyService {
 
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
     private static final Duration TTL = Duration.ofMinutes(10);
 
-    private final IdempotencyRecordRepository repo;
-    private final ObjectMapper objectMapper;
+    // What IdempotencyFilter hands over for one HTTP exchange.
+    public interface RawExchange {
+        // SHA-256 of the whole request body; reads whatever the handler left unread.
+        byte[] requestDigest() throws IOException;
 
-    public IdempotencyService(IdempotencyRecordRepository repo, ObjectMapper objectMapper) {
-        this.repo = repo;
-        this.objectMapper = objectMapper;
+        // Runs the rest of the filter chain; completes with the response once it has been fully written.
+        CompletionStage<CapturedResponse> proceed() throws IOException, ServletException;
     }
 
-    @Transactional
-    public <T> IdempotencyResult<T> execute(
-            String idempotencyKey,
-            String scope,
-            Object requestBody,
-            Class<T> responseType,
-            java.util.function.Supplier<IdempotencyResult<T>> action
-    ) {
-        cleanupExpired();
-
-        String requestHash = sha256Json(requestBody);
-
-        Optional<IdempotencyRecord> existingOpt = repo.findByIdempotencyKeyAndScope(idempotencyKey, scope);
-        if (existingOpt.isPresent()) {
-            IdempotencyRecord existing = existingOpt.get();
-
-            if (existing.getExpiresAt().isBefore(Instant.now())) {
-                repo.delete(existing);
-            } else if (!existing.getRequestHash().equals(requestHash)) {
-                throw new IdempotencyConflictException("Idempotency-Key reused with a different request body.");
-            } else {
-                // Return cached response
-                T body = readJson(existing.getResponseBodyJson(), responseType);
-                return new IdempotencyResult<>(existing.getStatusCode(), body, true);
-            }
+    public record CapturedResponse(int statusCode, String contentType, Map<String, String> headers, byte[] body) {}
+
+    public record RawOutcome(CapturedResponse response, boolean replay) {}
+
+    // The request currently executing for a scope+key; duplicates wait on its result instead of racing it.
+    // The digest is a future too: the filter only knows it once the leader's body has been read.
+    private record InFlight(CompletableFuture<byte[]> requestDigest, CompletableFuture<Object> result) {}
+
+    private final IdempotencyStore store;
+    private final TransactionTemplate tx;
+    private final Duration inFlightMaxWait;
+    private final long maxResponseSize;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter notStoredTooLarge;
+    private final Counter notStoredError;
+
+    public IdempotencyService(IdempotencyStore store,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.in-flight.max-wait:PT30S}") Duration inFlightMaxWait,
+                              @Value("${idempotency.max-response-size:512KB}") DataSize maxResponseSize) {
+        this.store = store;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.inFlightMaxWait = inFlightMaxWait;
+        this.maxResponseSize = maxResponseSize.toBytes();
+        this.coalesced = Counter.builder("idempotency.coalesced").register(meterRegistry);
+        this.notStoredTooLarge = Counter.builder("idempotency.not-stored").tag("reason", "too_large").register(meterRegistry);
+        this.notStoredError = Counter.builder("idempotency.not-stored").tag("reason", "error").register(meterRegistry);
+    }
+
+    /**
+     * Used by {@link IdempotencyFilter}: the request is hashed as it streams in and the response is
+     * stored and replayed exactly as it was written, with no Jackson round trip.
+     * Server errors (5xx) are not stored, so a retry executes again. Neither are responses above
+     * {@code idempotency.max-response-size} or ones the store fails on: the handler has already run,
+     * so its response still goes out, and the miss is logged and counted as {@code idempotency.not-stored}.
+     * For an async handler the outcome completes with the last async dispatch; the key stays
+     * in flight until then.
+     */
+    public CompletableFuture<RawOutcome> executeRaw(String idempotencyKey, String scope, RawExchange exchange) throws IOException, ServletException {
+        String flightKey = scope + "\n" + idempotencyKey;
+        InFlight mine = new InFlight(new CompletableFuture<>(), new CompletableFuture<>());
+        InFlight leader = inFlight.putIfAbsent(flightKey, mine);
+        if (leader != null) {
+            byte[] requestDigest = exchange.requestDigest();
+            return CompletableFuture.completedFuture(new RawOutcome((CapturedResponse) awaitLeader(leader, requestDigest), true));
         }
 
-        // Execute business action once
-        IdempotencyResult<T> result = action.get();
-
-        // Persist response
-        IdempotencyRecord rec = new IdempotencyRecord();
-        rec.setIdempotencyKey(idempotencyKey);
-        rec.setScope(scope);
-        rec.setRequestHash(requestHash);
-        rec.setStatusCode(result.statusCode());
-        rec.setResponseBodyJson(writeJson(result.body()));
-        rec.setCreatedAt(Instant.now());
-        rec.setExpiresAt(Instant.now().plus(TTL));
-        repo.save(rec);
-
-        return new IdempotencyResult<>(result.statusCode(), result.body(), false);
-    }
+        boolean handedOff = false;
+        try {
+            IdempotencyEntry existing = store.find(scope, idempotencyKey).orElse(null);
+            if (existing != null) {
+                CapturedResponse stored = new CapturedResponse(existing.statusCode(), existing.contentType(), existing.headers(), existing.payload());
+                mine.requestDigest().complete(existing.requestDigest());
+                mine.result().complete(stored);
+                if (!MessageDigest.isEqual(existing.requestDigest(), exchange.requestDigest())) {
+                    throw new IdempotencyConflictException("Idempotency-Key reused with a different request body.");
+                }
+                return CompletableFuture.completedFuture(new RawOutcome(stored, true));
+            }
 
-    private void cleanupExpired() {
-        repo.deleteByExpiresAtBefore(Instant.now());
+            CompletionStage<CapturedResponse> proceeding = exchange.proceed();
+            // the handler has read the body by now, even if its response is still pending
+            byte[] requestDigest = exchange.requestDigest();
+            mine.requestDigest().complete(requestDigest);
+
+            CompletableFuture<RawOutcome> outcome = proceeding.toCompletableFuture()
+                    .thenApply(response -> {
+                        if (response.statusCode() < 500) {
+                            store(scope, idempotencyKey, requestDigest, response);
+                        }
+                        return new RawOutcome(response, false);
+                    })
+                    .whenComplete((done, failure) -> {
+                        if (failure != null) {
+                            mine.result().completeExceptionally(failure instanceof CompletionException ce && ce.getCause() != null ? ce.getCause() : failure);
+                        } else {
+                            mine.result().complete(done.response());
+                        }
+                        inFlight.remove(flightKey, mine);
+                    });
+            handedOff = true;
+            return outcome;
+        } catch (IOException | ServletException | RuntimeException e) {
+            mine.requestDigest().completeExceptionally(e);
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!handedOff) {
+                inFlight.remove(flightKey, mine);
+            }
+        }
     }
 
-    private String sha256Json(Object obj) {
+    private void store(String scope, String idempotencyKey, byte[] requestDigest, CapturedResponse response) {
+        if (response.body().length > maxResponseSize) {
+            notStoredTooLarge.increment();
+            log.warn("IdempotencyService::store response of {} bytes for scope {} is above {} bytes, not stored; a retry executes again",
+                    response.body().length, scope, maxResponseSize);
+            return;
+        }
         try {
-            byte[] json = objectMapper.writeValueAsBytes(obj);
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(json);
-            return HexFormat.of().formatHex(digest);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to hash request body", e);
+            tx.executeWithoutResult(status -> store.put(scope, idempotencyKey, new IdempotencyEntry(
+                    requestDigest,
+                    response.statusCode(),
+                    response.contentType(),
+                    response.headers(),
+                    response.body(),
+                    Instant.now().plus(TTL))));
+        } catch (RuntimeException e) {
+            notStoredError.increment();
+            log.error("IdempotencyService::store failed for scope {}; a retry executes again", scope, e);
         }
     }
 
-    private String writeJson(Object obj) {
-        try {
-            return objectMapper.writeValueAsString(obj);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to serialize response", e);
+    private Object awaitLeader(InFlight leader, byte[] requestDigest) {
+        long deadline = System.nanoTime() + inFlightMaxWait.toNanos();
+        if (!MessageDigest.isEqual(await(leader.requestDigest(), deadline), requestDigest)) {
+            throw new IdempotencyConflictException("Idempotency-Key reused with a different request body.");
         }
+        coalesced.increment();
+        return await(leader.result(), deadline);
     }
 
-    private <T> T readJson(String json, Class<T> type) {
+    private static <V> V await(CompletableFuture<V> future, long deadlineNanos) {
         try {
-            return objectMapper.readValue(json, type);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to deserialize cached response", e);
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // same outcome as the request we coalesced onto
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight request", e);
         }
     }
 }
@@ -0,0 +1,16 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    /**
+     * The live entry for scope + key, if any. Expired entries are reported as absent.
+     */
+    Optional<IdempotencyEntry> find(String scope, String idempotencyKey);
+
+    /**
+     * Stores the entry, replacing whatever (live or stale) is stored under scope + key.
+     */
+    void put(String scope, String idempotencyKey, IdempotencyEntry entry);
+}
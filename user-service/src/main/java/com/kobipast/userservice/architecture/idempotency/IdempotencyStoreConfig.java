@@ -0,0 +1,29 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyStoreConfig {
+
+    // tiered: in-memory front over the JPA table (default); jpa: database only
+    @Bean
+    public IdempotencyStore idempotencyStore(
+            IdempotencyRecordRepository repo,
+            MeterRegistry meterRegistry,
+            @Value("${idempotency.store.type:tiered}") String type,
+            @Value("${idempotency.store.memory.max-size:10000}") long maxSize,
+            @Value("${idempotency.store.compression.min-size:256}") int minCompressSize,
+            @Value("${idempotency.store.unsharded-recheck:PT1M}") Duration unshardedRecheck) {
+        JpaIdempotencyStore jpa = new JpaIdempotencyStore(repo, minCompressSize, unshardedRecheck, meterRegistry);
+        return switch (type) {
+            case "jpa" -> jpa;
+            case "tiered" -> new TieredIdempotencyStore(jpa, maxSize, meterRegistry);
+            default -> throw new IllegalStateException("Unsupported idempotency.store.type: " + type);
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes a controller method idempotent for requests carrying an {@code Idempotency-Key} header.
+ * Handled by {@link IdempotencyFilter}: the first request executes, retries with the same key and body
+ * get the stored status, body bytes and entity headers such as {@code Location} and {@code ETag} back
+ * (marked with {@code Idempotent-Replayed: true}), and the same key
+ * with a different body is a 409.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+
+    /**
+     * Key namespace; defaults to the HTTP method plus the controller method. Keys are also
+     * scoped to the authenticated caller.
+     */
+    String scope() default "";
+
+    /**
+     * Rejects requests without an {@code Idempotency-Key} with a 400 instead of executing them
+     * unprotected. Checked for unsafe methods (POST, PUT, PATCH, DELETE) only.
+     */
+    boolean required() default false;
+}
@@ -0,0 +1,114 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+// The idempotency_records table; the system of record behind any faster tier.
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository repo;
+    private final IdempotencyResponseCodec codec;
+    private final DistributionSummary rawSize;
+    private final DistributionSummary storedSize;
+    // Rows written before the shard column have none and are found by key and scope instead. They are
+    // sharded when overwritten and otherwise expire; re-checked every unshardedRecheck, so the fallback
+    // stops once they are gone (and resumes if an older instance still writes some).
+    private final long unshardedRecheckNanos;
+    private volatile UnshardedCheck unshardedRows;
+
+    private record UnshardedCheck(boolean present, long checkedAt) {}
+
+    public JpaIdempotencyStore(IdempotencyRecordRepository repo, int minCompressSize, Duration unshardedRecheck, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.unshardedRecheckNanos = unshardedRecheck.toNanos();
+        this.codec = new IdempotencyResponseCodec(minCompressSize);
+        this.rawSize = sizeSummary("raw", meterRegistry);
+        this.storedSize = sizeSummary("stored", meterRegistry);
+    }
+
+    @Override
+    public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+        // A stale record counts as absent; it is left for ExpiredRowSweeper, never deleted here.
+        Instant now = Instant.now();
+        return lookup(IdempotencyKeyspace.shardOf(scope, idempotencyKey), idempotencyKey, scope)
+                .filter(rec -> rec.getExpiresAt().isAfter(now))
+                .map(this::toEntry);
+    }
+
+    @Override
+    public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+        // a stale row is overwritten in place, which keeps uk_idempo_shard_key_scope satisfied
+        int shard = IdempotencyKeyspace.shardOf(scope, idempotencyKey);
+        IdempotencyRecord rec = lookup(shard, idempotencyKey, scope).orElseGet(() -> {
+            IdempotencyRecord created = new IdempotencyRecord();
+            created.setIdempotencyKey(idempotencyKey);
+            created.setScope(scope);
+            return created;
+        });
+
+        byte[] response = codec.encode(entry.statusCode(), entry.contentType(), entry.headers(), entry.payload());
+        rawSize.record(entry.payload().length);
+        storedSize.record(response.length);
+
+        rec.setShard(shard);
+        rec.setRequestDigest(entry.requestDigest());
+        rec.setResponse(response);
+        // a legacy or unsharded row is migrated by the overwrite
+        rec.setRequestHash(null);
+        rec.setStatusCode(null);
+        rec.setResponseBodyJson(null);
+        rec.setCreatedAt(Instant.now());
+        rec.setExpiresAt(entry.expiresAt());
+        repo.save(rec);
+    }
+
+    private Optional<IdempotencyRecord> lookup(int shard, String idempotencyKey, String scope) {
+        Optional<IdempotencyRecord> rec = repo.findByShardAndIdempotencyKeyAndScope(shard, idempotencyKey, scope);
+        if (rec.isPresent() || !unshardedRows()) {
+            return rec;
+        }
+        return repo.findByShardIsNullAndIdempotencyKeyAndScope(idempotencyKey, scope);
+    }
+
+    private boolean unshardedRows() {
+        UnshardedCheck check = unshardedRows;
+        long now = System.nanoTime();
+        if (check == null || now - check.checkedAt() >= unshardedRecheckNanos) {
+            check = new UnshardedCheck(repo.existsByShardIsNull(), now);
+            unshardedRows = check;
+        }
+        return check.present();
+    }
+
+    private IdempotencyEntry toEntry(IdempotencyRecord rec) {
+        if (rec.getResponse() != null) {
+            IdempotencyResponseCodec.Decoded decoded = codec.decode(rec.getResponse());
+            return new IdempotencyEntry(rec.getRequestDigest(), decoded.statusCode(), decoded.contentType(), decoded.headers(), decoded.body(), rec.getExpiresAt());
+        }
+        // legacy row: hex hash, status column and JSON text
+        return new IdempotencyEntry(
+                HexFormat.of().parseHex(rec.getRequestHash()),
+                rec.getStatusCode(),
+                MediaType.APPLICATION_JSON_VALUE,
+                Map.of(),
+                rec.getResponseBodyJson().getBytes(StandardCharsets.UTF_8),
+                rec.getExpiresAt());
+    }
+
+    private static DistributionSummary sizeSummary(String form, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("idempotency.response.size")
+                .description("Response size before (raw) and after (stored) encoding")
+                .baseUnit("bytes")
+                .tag("form", form)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory tier in front of another store (normally the JPA table).
+ * Retries usually arrive within seconds of the original request, so replays are served from memory.
+ * Writes go through to the backing store; misses read through it and populate the memory tier. Entries expire from memory with the record itself.
+ */
+public class TieredIdempotencyStore implements IdempotencyStore {
+
+    private record Key(String scope, String idempotencyKey) {}
+
+    private final IdempotencyStore backing;
+    private final Cache<Key, IdempotencyEntry> memory;
+
+    public TieredIdempotencyStore(IdempotencyStore backing, long maxSize, MeterRegistry meterRegistry) {
+        this.backing = backing;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((Key k, IdempotencyEntry e) -> Duration.between(Instant.now(), e.expiresAt())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "idempotency.memory");
+    }
+
+    @Override
+    public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+        Key key = new Key(scope, idempotencyKey);
+        IdempotencyEntry hit = memory.getIfPresent(key);
+        if (hit != null && !hit.isExpired(Instant.now())) {
+            return Optional.of(hit);
+        }
+
+        Optional<IdempotencyEntry> stored = backing.find(scope, idempotencyKey);
+        stored.ifPresent(e -> memory.put(key, e));
+        return stored;
+    }
+
+    @Override
+    public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+        backing.put(scope, idempotencyKey, entry);
+        Key key = new Key(scope, idempotencyKey);
+
+        // only visible once the backing write is committed - a rollback must not leave a phantom replay behind
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    memory.put(key, entry);
+                }
+            });
+        } else {
+            memory.put(key, entry);
+        }
+    }
+}
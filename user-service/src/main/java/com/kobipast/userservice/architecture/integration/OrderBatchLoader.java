@@ -0,0 +1,169 @@
+package com.kobipast.userservice.architecture.integration;
+
+import com.kobipast.userservice.architecture.integration.dto.BatchGetOrdersRequest;
+import com.kobipast.userservice.architecture.integration.dto.BatchGetOrdersResponse;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataLoader-style batching of single-order reads: concurrent loads are collected for a short window,
+ * or until the batch is full, and sent to order-service as one {@code POST /orders/batch-get}.
+ * Batches are per caller (the relayed Authorization header), since order-service authorizes the whole
+ * request with one token; a batch carries the correlation id of the load that opened it.
+ * A missing order fails only its own load, with the 404 a single GET would have produced.
+ */
+@Component
+public class OrderBatchLoader {
+
+    private final WebClient webClient;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxSize;
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    // caller -> the batch currently collecting loads for it
+    private final Map<String, Batch> open = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSize;
+
+    public OrderBatchLoader(WebClient orderWebClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${orders.client.batch.enabled:true}") boolean enabled,
+                            @Value("${orders.client.batch.window:PT0.005S}") Duration window,
+                            @Value("${orders.client.batch.max-size:50}") int maxSize) {
+        this.webClient = orderWebClient;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxSize = Math.max(1, maxSize);
+        this.batchSize = DistributionSummary.builder("orders.client.batch.size")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ids order-service couldn't parse would fail the whole batch; those keep going through a single GET.
+     */
+    public boolean accepts(String orderId) {
+        if (!enabled || orderId == null) {
+            return false;
+        }
+        try {
+            UUID.fromString(orderId);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param relayedHeaders captured on the calling request thread; they decide which batch the load joins
+     */
+    public CompletableFuture<OrderDto> load(String orderId, Map<String, String> relayedHeaders) {
+        String id = UUID.fromString(orderId).toString();
+        String caller = relayedHeaders.getOrDefault(HttpHeaders.AUTHORIZATION, "");
+        while (true) {
+            Batch batch = open.computeIfAbsent(caller, c -> openBatch(c, relayedHeaders));
+            CompletableFuture<OrderDto> pending = batch.add(id);
+            if (pending != null) {
+                return pending;
+            }
+            // that batch was just dispatched; the next one is opened on the retry
+        }
+    }
+
+    private Batch openBatch(String caller, Map<String, String> relayedHeaders) {
+        Batch batch = new Batch(caller, relayedHeaders);
+        scheduler.schedule(batch::dispatch, window.toNanos(), TimeUnit.NANOSECONDS);
+        return batch;
+    }
+
+    private final class Batch {
+
+        private final String caller;
+        private final Map<String, String> relayedHeaders;
+        // order id -> the load waiting for it; the same id twice in one window shares one entry
+        private final Map<String, CompletableFuture<OrderDto>> loads = new LinkedHashMap<>();
+        private boolean dispatched;
+
+        Batch(String caller, Map<String, String> relayedHeaders) {
+            this.caller = caller;
+            this.relayedHeaders = relayedHeaders;
+        }
+
+        CompletableFuture<OrderDto> add(String id) {
+            CompletableFuture<OrderDto> pending;
+            boolean full;
+            synchronized (this) {
+                if (dispatched) {
+                    return null;
+                }
+                pending = loads.computeIfAbsent(id, k -> new CompletableFuture<>());
+                full = loads.size() >= maxSize;
+            }
+            if (full) {
+                dispatch();
+            }
+            // each load gets its own copy, so a cancelled load (a losing hedge, a timeout) leaves the others alone
+            return pending.copy();
+        }
+
+        void dispatch() {
+            Map<String, CompletableFuture<OrderDto>> batch;
+            synchronized (this) {
+                if (dispatched) {
+                    return;
+                }
+                dispatched = true;
+                batch = loads;
+            }
+            open.remove(caller, this);
+            batchSize.record(batch.size());
+
+            webClient.post()
+                    .uri("/orders/batch-get")
+                    .bodyValue(new BatchGetOrdersRequest(new ArrayList<>(batch.keySet())))
+                    .retrieve()
+                    .bodyToMono(BatchGetOrdersResponse.class)
+                    .contextWrite(OrderClientConfig.relaying(relayedHeaders))
+                    .subscribe(response -> complete(batch, response), error -> batch.values().forEach(f -> f.completeExceptionally(error)));
+        }
+
+        private void complete(Map<String, CompletableFuture<OrderDto>> batch, BatchGetOrdersResponse response) {
+            for (OrderDto order : response.orders()) {
+                CompletableFuture<OrderDto> pending = batch.get(order.id());
+                if (pending != null) {
+                    pending.complete(order);
+                }
+            }
+            batch.forEach((id, pending) -> {
+                if (!pending.isDone()) {
+                    pending.completeExceptionally(notFound(id));
+                }
+            });
+        }
+    }
+
+    private static WebClientResponseException notFound(String id) {
+        byte[] body = ("{\"title\":\"Not Found\",\"status\":404,\"detail\":\"Order not found: " + id + "\"}").getBytes(StandardCharsets.UTF_8);
+        return WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", HttpHeaders.EMPTY, body, StandardCharsets.UTF_8);
+    }
+}
@@ -8,31 +8,71 @@ import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Map;
 
+/**
+ * Calls to order-service, in two shapes: blocking methods, and {@code *Async} methods returning a
+ * {@link Mono} that is never blocked on. Which one a caller uses follows {@link OrderClientMode};
+ * in {@link OrderClientMode#VIRTUAL} the blocking methods go through a blocking RestClient instead of
+ * blocking on a WebClient pipeline. Single-order reads by id are batched through {@link OrderBatchLoader}
+ * in every mode, and hedged by {@link OrderReadHedger} wherever they run on a pipeline (all reads except
+ * non-batched ones in virtual mode, whose RestClient call has no second attempt to race).
+ */
 @Service
 public class OrderClient {
 
     private final WebClient webClient;
+    private final RestClient restClient;
+    private final OrderBatchLoader batchLoader;
+    private final OrderReadHedger hedger;
+    private final boolean blockingIo;
 
-    public OrderClient(WebClient orderWebClient) {
+    public OrderClient(WebClient orderWebClient,
+                       RestClient orderRestClient,
+                       OrderBatchLoader batchLoader,
+                       OrderReadHedger hedger,
+                       @Value("${orders.client.mode:blocking}") OrderClientMode mode) {
         this.webClient = orderWebClient;
+        this.restClient = orderRestClient;
+        this.batchLoader = batchLoader;
+        this.hedger = hedger;
+        this.blockingIo = mode == OrderClientMode.VIRTUAL;
     }
 
     @CircuitBreaker(name = "orders", fallbackMethod = "createFallback")
     @Retry(name = "orders")
     public OrderDto createOrder(CreateOrderRequest req) {
+        if (blockingIo) {
+            return restClient.post()
+                    .uri("/orders")
+                    .body(req)
+                    .retrieve()
+                    .body(OrderDto.class);
+        }
+        return postOrder(req).block();
+    }
+
+    @CircuitBreaker(name = "orders", fallbackMethod = "createFallbackAsync")
+    @Retry(name = "orders")
+    public Mono<OrderDto> createOrderAsync(CreateOrderRequest req) {
+        return postOrder(req).contextWrite(OrderClientConfig.captureRelayedHeaders());
+    }
+
+    private Mono<OrderDto> postOrder(CreateOrderRequest req) {
         return webClient.post()
                 .uri("/orders")
                 .bodyValue(req)
                 .retrieve()
-                .bodyToMono(OrderDto.class)
-                .block();
+                .bodyToMono(OrderDto.class);
     }
 
     private OrderDto createFallback(CreateOrderRequest req, Throwable t) {
@@ -46,35 +86,82 @@ public class OrderClient {
         );
     }
 
+    private Mono<OrderDto> createFallbackAsync(CreateOrderRequest req, Throwable t) {
+        return Mono.just(createFallback(req, t));
+    }
+
     @CircuitBreaker(name = "orders", fallbackMethod = "getFallback")
     @Retry(name = "orders")
     public OrderDto getOrder(String orderId) {
-        return webClient.get()
-                .uri("/orders/{id}", orderId)
-                .retrieve()
-                .bodyToMono(OrderDto.class)
-                .block();
+        return getOrderFlat(orderId);
+    }
+
+    @CircuitBreaker(name = "orders", fallbackMethod = "getFallbackAsync")
+    @Retry(name = "orders")
+    public Mono<OrderDto> getOrderAsync(String orderId) {
+        return getOrderFlatAsync(orderId);
     }
 
     public OrderDto getOrderFlat(String orderId) {
+        if (blockingIo && !batchLoader.accepts(orderId)) {
+            return restClient.get()
+                    .uri("/orders/{id}", orderId)
+                    .retrieve()
+                    .body(OrderDto.class);
+        }
+        // the hedge is sent from a timer thread, so the relayed headers go in the context here too
+        return getOrderFlatAsync(orderId).block();
+    }
+
+    public Mono<OrderDto> getOrderFlatAsync(String orderId) {
+        if (batchLoader.accepts(orderId)) {
+            // captured now: a retry or hedge resubscribes off the request thread
+            Map<String, String> relayed = OrderClientConfig.relayedHeaders();
+            return hedger.hedge(() -> Mono.fromFuture(() -> batchLoader.load(orderId, relayed)));
+        }
+        return hedger.hedge(() -> fetchOrder(orderId)).contextWrite(OrderClientConfig.captureRelayedHeaders());
+    }
+
+    private Mono<OrderDto> fetchOrder(String orderId) {
         return webClient.get()
                 .uri("/orders/{id}", orderId)
                 .retrieve()
-                .bodyToMono(OrderDto.class)
-                .block();
+                .bodyToMono(OrderDto.class);
     }
 
     private OrderDto getFallback(String orderId, Throwable t) {
         return new OrderDto(orderId, "fallback", "FAILED", 0, Instant.now().toString(), -1);
     }
 
+    private Mono<OrderDto> getFallbackAsync(String orderId, Throwable t) {
+        return Mono.just(getFallback(orderId, t));
+    }
+
     @CircuitBreaker(name = "orders")
     public OrderDto updateStatus(String orderId, UpdateOrderStatusRequest req) {
+        if (blockingIo) {
+            return restClient.patch()
+                    .uri("/orders/{id}/status", orderId)
+                    .body(req)
+                    .retrieve()
+                    .onStatus(status -> status.value() == HttpStatus.CONFLICT.value(), (request, resp) -> {
+                        throw conflict(new String(resp.getBody().readAllBytes(), StandardCharsets.UTF_8));
+                    })
+                    .body(OrderDto.class);
+        }
+        return patchStatus(orderId, req).block();
+    }
+
+    @CircuitBreaker(name = "orders")
+    public Mono<OrderDto> updateStatusAsync(String orderId, UpdateOrderStatusRequest req) {
+        return patchStatus(orderId, req).contextWrite(OrderClientConfig.captureRelayedHeaders());
+    }
+
+    private Mono<OrderDto> patchStatus(String orderId, UpdateOrderStatusRequest req) {
         return webClient.patch()
                 .uri("/orders/{id}/status", orderId)
                 .bodyValue(req)
-                .exchangeToMono(resp -> handleUpdateStatusResponse(resp))
-                .block();
+                .exchangeToMono(resp -> handleUpdateStatusResponse(resp));
     }
 
     private Mono<OrderDto> handleUpdateStatusResponse(ClientResponse resp) {
@@ -86,16 +173,21 @@ public class OrderClient {
         if (resp.statusCode() == HttpStatus.CONFLICT) {
             return resp.bodyToMono(String.class)
                     .defaultIfEmpty("")
-                    .flatMap(body -> Mono.error(new DownstreamProblemException(
-                            HttpStatus.CONFLICT.value(),
-                            body,
-                            MediaType.APPLICATION_PROBLEM_JSON_VALUE
-                    )));
+                    .flatMap(body -> Mono.error(conflict(body)));
         }
 
         // Other statuses -> treat as failure for CB/fallback (or bubble up)
         return resp.createException().flatMap(Mono::error);
     }
+
+    private static DownstreamProblemException conflict(String body) {
+        return new DownstreamProblemException(
+                HttpStatus.CONFLICT.value(),
+                body,
+                MediaType.APPLICATION_PROBLEM_JSON_VALUE
+        );
+    }
+
     @Deprecated
     private OrderDto updateFallback(String orderId, UpdateOrderStatusRequest req, Throwable t) {
         return new OrderDto(orderId, "fallback", "FAILED", 0, Instant.now().toString(), -1);
@@ -1,35 +1,153 @@
 package com.kobipast.userservice.architecture.integration;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@EnableConfigurationProperties(OrderClientProperties.class)
 public class OrderClientConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderClientConfig.class);
+
     private static final String CORR_HEADER = "X-Correlation-Id";
+    private static final String RELAYED_HEADERS = OrderClientConfig.class.getName() + ".relayedHeaders";
+
+    private final OrderClientProperties properties;
+
+    public OrderClientConfig(OrderClientProperties properties,
+                             @Value("${orders.client.mode:blocking}") OrderClientMode mode,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.properties = properties;
+        if (mode == OrderClientMode.VIRTUAL && (!virtualThreads || Runtime.version().feature() < 21)) {
+            log.warn("OrderClientConfig: orders.client.mode=virtual without virtual request threads - "
+                    + "blocking calls will hold Tomcat workers (set spring.threads.virtual.enabled=true on Java 21+)");
+        }
+    }
+
+    // Pool gauges (reactor.netty.connection.provider.{active,idle,pending,total}.connections, and streams for h2c)
+    // are published to the global registry, which Boot's registry is part of.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider orderConnectionProvider() {
+        OrderClientProperties.Pool pool = properties.pool();
+        return ConnectionProvider.builder("orders")
+                .maxConnections(pool.maxConnections())
+                .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+                .maxIdleTime(pool.maxIdleTime())
+                .maxLifeTime(pool.maxLifeTime())
+                .evictInBackground(pool.evictionInterval())
+                .metrics(true)
+                .build();
+    }
 
     @Bean
-    public WebClient orderWebClient() {
+    public WebClient orderWebClient(ConnectionProvider orderConnectionProvider) {
+        OrderClientProperties.Timeouts timeouts = properties.timeouts();
+        reactor.netty.http.client.HttpClient httpClient = reactor.netty.http.client.HttpClient.create(orderConnectionProvider)
+                .protocol(properties.protocol() == OrderClientProperties.Protocol.H2C ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeouts.connect().toMillis())
+                .responseTimeout(timeouts.response())
+                .doOnConnected(conn -> conn.addHandlerLast(new ReadTimeoutHandler(timeouts.read().toMillis(), TimeUnit.MILLISECONDS)));
         return WebClient.builder()
-                .baseUrl("http://localhost:8082")
-                .filter(correlationIdOutFilter())
+                .baseUrl(properties.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(relayHeadersFilter())
                 .build();
     }
 
-    private ExchangeFilterFunction correlationIdOutFilter() {
-        return ExchangeFilterFunction.ofRequestProcessor(req -> {
-            String cid = MDC.get("correlationId");
-            if (cid == null || cid.isBlank()) {
-                return Mono.just(req);
+    // Used in virtual mode: plain blocking I/O, which parks a virtual thread instead of pinning a worker.
+    @Bean
+    public RestClient orderRestClient() {
+        OrderClientProperties.Timeouts timeouts = properties.timeouts();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(properties.protocol() == OrderClientProperties.Protocol.H2C ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeouts.connect())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(timeouts.response());
+        return RestClient.builder()
+                .baseUrl(properties.baseUrl())
+                .requestFactory(requestFactory)
+                .requestInterceptor((request, body, execution) -> {
+                    relayedHeaders().forEach(request.getHeaders()::set);
+                    return execution.execute(request, body);
+                })
+                .build();
+    }
+
+    /**
+     * Captures the headers to relay on the calling request thread, for pipelines that may be
+     * (re)subscribed elsewhere - a retry resubscribes on a timer thread, where MDC and the
+     * request attributes are gone.
+     */
+    public static Context captureRelayedHeaders() {
+        return relaying(relayedHeaders());
+    }
+
+    static Context relaying(Map<String, String> headers) {
+        return Context.of(RELAYED_HEADERS, headers);
+    }
+
+    private ExchangeFilterFunction relayHeadersFilter() {
+        return (req, next) -> Mono.deferContextual(ctx -> {
+            // not captured: subscribed by block() on the request thread
+            Map<String, String> relayed = ctx.getOrDefault(RELAYED_HEADERS, null);
+            if (relayed == null) {
+                relayed = relayedHeaders();
+            }
+            if (relayed.isEmpty()) {
+                return next.exchange(req);
             }
 
-            ClientRequest mutated = ClientRequest.from(req).header(CORR_HEADER, cid).build();
-            return Mono.just(mutated);
+            Map<String, String> headers = relayed;
+            ClientRequest mutated = ClientRequest.from(req).headers(h -> headers.forEach(h::set)).build();
+            return next.exchange(mutated);
         });
     }
+
+    // what the current request thread would relay: correlation id and the caller's Authorization
+    static Map<String, String> relayedHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+
+        String cid = MDC.get("correlationId");
+        if (cid != null && !cid.isBlank()) {
+            headers.put(CORR_HEADER, cid);
+        }
+
+        // order-service verifies the caller's JWT locally (keys from our JWKS endpoint), so pass it along.
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs) {
+            String authorization = attrs.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+            if (authorization != null && !authorization.isBlank()) {
+                headers.put(HttpHeaders.AUTHORIZATION, authorization);
+            }
+        }
+        return headers;
+    }
 }
@@ -0,0 +1,16 @@
+package com.kobipast.userservice.architecture.integration;
+
+/**
+ * How calls to order-service are executed ({@code orders.client.mode}).
+ */
+public enum OrderClientMode {
+
+    // WebClient pipeline blocked on the Tomcat worker; concurrency is capped by the worker pool
+    BLOCKING,
+
+    // WebClient pipeline handed back to Spring MVC as a Mono; the worker is released while the call is in flight
+    REACTIVE,
+
+    // blocking RestClient on a virtual request thread (spring.threads.virtual.enabled, Java 21+)
+    VIRTUAL
+}
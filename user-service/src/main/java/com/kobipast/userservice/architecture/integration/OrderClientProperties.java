@@ -0,0 +1,62 @@
+package com.kobipast.userservice.architecture.integration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Transport settings for the HTTP clients in {@link OrderClientConfig}. Anything left out falls back to
+ * the defaults below, which assume order-service is Tomcat with its default 20s keep-alive timeout.
+ *
+ * @param protocol {@code h2c} multiplexes requests over a few plaintext HTTP/2 connections (prior knowledge,
+ *                 so order-service must have server.http2.enabled); {@code http11} uses one connection per
+ *                 in-flight request
+ */
+@ConfigurationProperties(prefix = "orders.client")
+public record OrderClientProperties(String baseUrl, Protocol protocol, Pool pool, Timeouts timeouts) {
+
+    public enum Protocol { HTTP11, H2C }
+
+    public OrderClientProperties {
+        baseUrl = baseUrl == null ? "http://localhost:8082" : baseUrl;
+        protocol = protocol == null ? Protocol.H2C : protocol;
+        pool = pool == null ? new Pool(null, null, null, null, null, null) : pool;
+        timeouts = timeouts == null ? new Timeouts(null, null, null) : timeouts;
+    }
+
+    /**
+     * @param maxConnections         open connections to order-service; with h2c each carries many streams
+     * @param pendingAcquireMaxCount requests allowed to wait for a connection before failing fast
+     * @param pendingAcquireTimeout  how long a request waits for a connection before failing
+     * @param maxIdleTime            idle connections are closed after this; kept below the server's keep-alive
+     *                               timeout so we never reuse a connection it is about to close
+     * @param maxLifeTime            connections are retired after this, so DNS and load balancer changes are picked up
+     * @param evictionInterval       how often idle and expired connections are closed in the background
+     */
+    public record Pool(Integer maxConnections, Integer pendingAcquireMaxCount, Duration pendingAcquireTimeout,
+                       Duration maxIdleTime, Duration maxLifeTime, Duration evictionInterval) {
+
+        public Pool {
+            maxConnections = maxConnections == null ? 500 : maxConnections;
+            pendingAcquireMaxCount = pendingAcquireMaxCount == null ? 1000 : pendingAcquireMaxCount;
+            pendingAcquireTimeout = pendingAcquireTimeout == null ? Duration.ofSeconds(2) : pendingAcquireTimeout;
+            maxIdleTime = maxIdleTime == null ? Duration.ofSeconds(15) : maxIdleTime;
+            maxLifeTime = maxLifeTime == null ? Duration.ofMinutes(5) : maxLifeTime;
+            evictionInterval = evictionInterval == null ? Duration.ofSeconds(30) : evictionInterval;
+        }
+    }
+
+    /**
+     * @param connect  TCP connect
+     * @param read     longest silence on a connection while a response is being read
+     * @param response from request sent to the full response headers
+     */
+    public record Timeouts(Duration connect, Duration read, Duration response) {
+
+        public Timeouts {
+            connect = connect == null ? Duration.ofSeconds(1) : connect;
+            read = read == null ? Duration.ofSeconds(5) : read;
+            response = response == null ? Duration.ofSeconds(5) : response;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.kobipast.userservice.architecture.integration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for idempotent order reads: if the first attempt hasn't answered within the hedge
+ * delay, a second identical attempt is sent and whichever answers first wins; the other is cancelled.
+ * The delay follows the observed latency percentile of reads (p95 by default), clamped to
+ * [min-delay, max-delay], and uses the configured delay until enough reads have been seen.
+ * Hedges spend tokens from a budget that every read refills by {@code budget.ratio}, so they can add
+ * at most that fraction of extra load (plus a small burst), however slow order-service gets.
+ *
+ * <p>Metrics: {@code orders.client.hedge.requests} (outcome=sent|budget_exhausted),
+ * {@code orders.client.hedge.wins} (winner=hedge|primary, for reads that were hedged),
+ * {@code orders.client.hedge.delay} and {@code orders.client.hedge.budget}.</p>
+ */
+@Component
+public class OrderReadHedger {
+
+    private static final long TOKEN = 1000; // budget is kept in thousandths of a hedge
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final Duration configuredDelay;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final long minSamples;
+    private final long refill;
+    private final long maxTokens;
+
+    private final AtomicLong tokens;
+    private volatile Duration delay;
+    private volatile long delayComputedAt;
+
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter budgetExhausted;
+    private final Counter hedgeWins;
+    private final Counter primaryWins;
+
+    public OrderReadHedger(MeterRegistry meterRegistry,
+                           @Value("${orders.client.hedging.enabled:true}") boolean enabled,
+                           @Value("${orders.client.hedging.delay:PT0.1S}") Duration delay,
+                           @Value("${orders.client.hedging.percentile:0.95}") double percentile,
+                           @Value("${orders.client.hedging.min-delay:PT0.01S}") Duration minDelay,
+                           @Value("${orders.client.hedging.max-delay:PT1S}") Duration maxDelay,
+                           @Value("${orders.client.hedging.min-samples:100}") long minSamples,
+                           @Value("${orders.client.hedging.budget.ratio:0.1}") double ratio,
+                           @Value("${orders.client.hedging.budget.max-tokens:10}") int maxTokens) {
+        this.enabled = enabled;
+        this.configuredDelay = delay;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.minSamples = minSamples;
+        this.refill = Math.round(ratio * TOKEN);
+        this.maxTokens = Math.max(1, maxTokens) * TOKEN;
+        this.tokens = new AtomicLong(this.maxTokens);
+        this.delay = delay;
+        this.delayComputedAt = System.nanoTime() - DELAY_REFRESH_NANOS;
+
+        this.latency = Timer.builder("orders.client.read.latency")
+                .description("first attempt of hedged order reads; cancelled attempts count up to their cancellation")
+                .publishPercentiles(percentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.sent = Counter.builder("orders.client.hedge.requests").tag("outcome", "sent").register(meterRegistry);
+        this.budgetExhausted = Counter.builder("orders.client.hedge.requests").tag("outcome", "budget_exhausted").register(meterRegistry);
+        this.hedgeWins = Counter.builder("orders.client.hedge.wins").tag("winner", "hedge").register(meterRegistry);
+        this.primaryWins = Counter.builder("orders.client.hedge.wins").tag("winner", "primary").register(meterRegistry);
+        Gauge.builder("orders.client.hedge.delay", this, h -> h.delay.toNanos() / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("orders.client.hedge.budget", tokens, t -> (double) t.get() / TOKEN).register(meterRegistry);
+    }
+
+    /**
+     * @param read subscribed once for the first attempt and once more for the hedge; must be idempotent.
+     *             Both attempts see the subscriber's context, so relayed headers have to be put there.
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> read) {
+        if (!enabled) {
+            return Mono.defer(read);
+        }
+        return Mono.defer(() -> {
+            refill();
+            long start = System.nanoTime();
+
+            // a cancelled first attempt is recorded at its cancellation - a lower bound, but above the delay
+            Mono<Answer<T>> primary = Mono.defer(read)
+                    .map(value -> new Answer<>(value, false))
+                    .doFinally(signal -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+
+            AtomicBoolean hedged = new AtomicBoolean();
+            Mono<Answer<T>> hedge = Mono.delay(currentDelay()).flatMap(tick -> {
+                if (!tryWithdraw()) {
+                    budgetExhausted.increment();
+                    return Mono.never();
+                }
+                sent.increment();
+                hedged.set(true);
+                // a failing hedge never beats a first attempt that may still succeed
+                return Mono.defer(read)
+                        .map(value -> new Answer<>(value, true))
+                        .onErrorResume(e -> Mono.never());
+            });
+
+            return Mono.firstWithSignal(primary, hedge)
+                    .doOnNext(answer -> {
+                        if (answer.hedge()) {
+                            hedgeWins.increment();
+                        } else if (hedged.get()) {
+                            primaryWins.increment();
+                        }
+                    })
+                    .map(Answer::value);
+        });
+    }
+
+    Duration currentDelay() {
+        long now = System.nanoTime();
+        if (now - delayComputedAt < DELAY_REFRESH_NANOS || latency.count() < minSamples) {
+            return delay;
+        }
+        delayComputedAt = now;
+        ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+        Duration observed = percentiles.length == 0
+                ? configuredDelay
+                : Duration.ofNanos((long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        delay = observed.compareTo(minDelay) < 0 ? minDelay : observed.compareTo(maxDelay) > 0 ? maxDelay : observed;
+        return delay;
+    }
+
+    private void refill() {
+        tokens.accumulateAndGet(refill, (current, add) -> Math.min(maxTokens, current + add));
+    }
+
+    private boolean tryWithdraw() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private record Answer<T>(T value, boolean hedge) {
+    }
+}
@@ -0,0 +1,5 @@
+package com.kobipast.userservice.architecture.integration.dto;
+
+import java.util.List;
+
+public record BatchGetOrdersRequest(List<String> ids) {}
@@ -0,0 +1,5 @@
+package com.kobipast.userservice.architecture.integration.dto;
+
+import java.util.List;
+
+public record BatchGetOrdersResponse(List<OrderDto> orders, List<String> missing) {}
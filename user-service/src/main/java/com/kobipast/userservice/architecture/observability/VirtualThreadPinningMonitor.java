@@ -0,0 +1,118 @@
+package com.kobipast.userservice.architecture.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads that blocked while pinned to their carrier - typically blocking I/O inside a
+ * {@code synchronized} block or a native frame - from the JFR {@code jdk.VirtualThreadPinned} event.
+ * Every pinned wait holds a carrier, so a hot site here caps the whole service at the carrier count.
+ * Each event is timed under {@code virtual.threads.pinned}, tagged with the innermost frame outside the
+ * JDK; the first occurrence of a site is logged with its stack.
+ * Only active when request handling runs on virtual threads (spring.threads.virtual.enabled on Java 21+).
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+    static final String OTHER_SITE = "other";
+
+    private static final List<String> JDK_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "com.sun.");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final int maxSites;
+    private final Map<String, Timer> sites = new ConcurrentHashMap<>();
+    private final Counter dropped;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${diagnostics.virtual-threads.pinned-threshold:PT0.02S}") Duration threshold,
+                                       @Value("${diagnostics.virtual-threads.max-sites:50}") int maxSites) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.maxSites = maxSites;
+        this.dropped = Counter.builder("virtual.threads.pinned.dropped").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::record);
+        stream.setMaxAge(Duration.ofMinutes(1));
+        stream.startAsync();
+        log.info("VirtualThreadPinningMonitor: reporting pinned waits over {}", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        try {
+            RecordedStackTrace stack = event.getStackTrace();
+            List<String> frames = stack == null ? List.of() : stack.getFrames().stream()
+                    .map(RecordedFrame::getMethod)
+                    .map(m -> m.getType().getName() + "." + m.getName())
+                    .toList();
+            timer(siteOf(frames), frames).record(event.getDuration());
+        } catch (RuntimeException e) {
+            // never let a diagnostic kill the stream
+            dropped.increment();
+        }
+    }
+
+    private Timer timer(String site, List<String> frames) {
+        Timer existing = sites.get(site);
+        if (existing != null) {
+            return existing;
+        }
+        String tag = sites.size() < maxSites ? site : OTHER_SITE;
+        return sites.computeIfAbsent(tag, t -> {
+            log.warn("VirtualThreadPinningMonitor: virtual thread pinned at {}\n\tat {}", t, String.join("\n\tat ", frames));
+            return Timer.builder("virtual.threads.pinned")
+                    .tag("site", t)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * @param frames innermost first, as {@code class.method}
+     * @return the innermost frame outside the JDK - where the monitor was entered or the blocking call made
+     */
+    static String siteOf(List<String> frames) {
+        for (String frame : frames) {
+            if (JDK_PACKAGES.stream().noneMatch(frame::startsWith)) {
+                return frame;
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0);
+    }
+}
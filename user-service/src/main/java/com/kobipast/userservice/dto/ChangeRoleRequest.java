@@ -0,0 +1,25 @@
+package com.kobipast.userservice.dto;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import jakarta.validation.constraints.NotNull;
+
+public class ChangeRoleRequest {
+
+    @NotNull(message = "Role is required")
+    private Role role;
+
+    public ChangeRoleRequest() {
+    }
+
+    public ChangeRoleRequest(Role role) {
+        this.role = role;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+}
@@ -0,0 +1,150 @@
+package com.kobipast.userservice.persistence.maintenance;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyRecordRepository;
+import com.kobipast.userservice.persistence.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Background reclamation of expired rows (refresh tokens, idempotency records).
+ * Rows are deleted in small chunks of ids, each in its own short transaction, so a sweep never holds
+ * long locks and request threads never pay for housekeeping.
+ * Runs are bounded by row count and wall time, and spaced by interval + random jitter so
+ * several instances don't sweep in lockstep.
+ */
+@Component
+public class ExpiredRowSweeper implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredRowSweeper.class);
+
+    private record Target(String table,
+                          BiFunction<Instant, Limit, List<UUID>> findExpired,
+                          BiFunction<List<UUID>, Instant, Integer> delete,
+                          Counter reclaimed,
+                          Timer duration) {}
+
+    private final List<Target> targets;
+    private final TransactionTemplate tx;
+    private final Duration interval;
+    private final Duration initialDelay;
+    private final Duration maxJitter;
+    private final int chunkSize;
+    private final int maxRowsPerRun;
+    private final Duration maxRunTime;
+
+    public ExpiredRowSweeper(
+            RefreshTokenRepository refreshTokens,
+            IdempotencyRecordRepository idempotencyRecords,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${housekeeping.sweep.interval:PT1M}") Duration interval,
+            @Value("${housekeeping.sweep.initial-delay:PT30S}") Duration initialDelay,
+            @Value("${housekeeping.sweep.max-jitter:PT10S}") Duration maxJitter,
+            @Value("${housekeeping.sweep.chunk-size:500}") int chunkSize,
+            @Value("${housekeeping.sweep.max-rows-per-run:10000}") int maxRowsPerRun,
+            @Value("${housekeeping.sweep.max-run-time:PT5S}") Duration maxRunTime) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.initialDelay = initialDelay;
+        this.maxJitter = maxJitter;
+        this.chunkSize = chunkSize;
+        this.maxRowsPerRun = maxRowsPerRun;
+        this.maxRunTime = maxRunTime;
+        this.targets = List.of(
+                target("refresh_token", refreshTokens::findExpiredIds, refreshTokens::deleteExpired, meterRegistry),
+                target("idempotency_records", idempotencyRecords::findExpiredIds, idempotencyRecords::deleteExpired, meterRegistry)
+        );
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addTriggerTask(this::sweepAll, ctx -> {
+            Instant last = ctx.lastCompletion();
+            Instant base = last == null ? Instant.now().plus(initialDelay) : last.plus(interval);
+            return base.plusMillis(jitterMillis());
+        });
+    }
+
+    /**
+     * Runs one bounded sweep over every table.
+     *
+     * @return rows reclaimed per table
+     */
+    public Map<String, Integer> sweepAll() {
+        Map<String, Integer> reclaimed = new LinkedHashMap<>();
+        for (Target target : targets) {
+            try {
+                reclaimed.put(target.table(), sweep(target));
+            } catch (RuntimeException e) {
+                // a failing table must not stop the others or kill the schedule
+                log.warn("ExpiredRowSweeper::sweep {} failed", target.table(), e);
+                reclaimed.put(target.table(), 0);
+            }
+        }
+        return reclaimed;
+    }
+
+    private int sweep(Target target) {
+        Instant now = Instant.now();
+        long start = System.nanoTime();
+        long deadline = start + maxRunTime.toNanos();
+        int total = 0;
+
+        try {
+            while (total < maxRowsPerRun && System.nanoTime() < deadline) {
+                int limit = Math.min(chunkSize, maxRowsPerRun - total);
+                int[] counts = tx.execute(status -> {
+                    List<UUID> ids = target.findExpired().apply(now, Limit.of(limit));
+                    int deleted = ids.isEmpty() ? 0 : target.delete().apply(ids, now);
+                    return new int[]{ids.size(), deleted};
+                });
+                total += counts[1];
+                if (counts[0] < limit) {
+                    break;
+                }
+            }
+        } finally {
+            target.reclaimed().increment(total);
+            target.duration().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (total > 0) {
+            log.debug("ExpiredRowSweeper::sweep {} reclaimed {} rows", target.table(), total);
+        }
+        return total;
+    }
+
+    private long jitterMillis() {
+        long max = maxJitter.toMillis();
+        return max <= 0 ? 0 : ThreadLocalRandom.current().nextLong(max + 1);
+    }
+
+    private static Target target(String table,
+                                 BiFunction<Instant, Limit, List<UUID>> findExpired,
+                                 BiFunction<List<UUID>, Instant, Integer> delete,
+                                 MeterRegistry meterRegistry) {
+        return new Target(table, findExpired, delete,
+                Counter.builder("housekeeping.sweep.rows").tag("table", table).register(meterRegistry),
+                Timer.builder("housekeeping.sweep.duration").tag("table", table).register(meterRegistry));
+    }
+}
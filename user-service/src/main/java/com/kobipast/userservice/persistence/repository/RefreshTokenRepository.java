@@ -1,14 +1,46 @@
 package com.kobipast.userservice.persistence.repository;
 
 import com.kobipast.userservice.persistence.entity.RefreshToken;
-import com.kobipast.userservice.persistence.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
-    Optional<RefreshToken> findByToken(String token);
-    Optional<RefreshToken> findByUser(User user);
-}
\ No newline at end of file
+    // Only used when the token isn't in the in-memory hot set.
+    @Query("select rt from RefreshToken rt join fetch rt.user where rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findWithUserByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Rotation is a single indexed update; 0 rows means the token was already rotated or revoked.
+    @Modifying
+    @Query("update RefreshToken rt set rt.tokenHash = :newHash, rt.expiresAt = :expiresAt where rt.tokenHash = :oldHash")
+    int rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("update RefreshToken rt set rt.tokenHash = :tokenHash, rt.expiresAt = :expiresAt where rt.user.id = :userId")
+    int replaceForUser(@Param("userId") String userId, @Param("tokenHash") String tokenHash, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("delete from RefreshToken rt where rt.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("delete from RefreshToken rt where rt.user.id = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    // One chunk of the expired-token sweep, oldest first.
+    @Query("select rt.id from RefreshToken rt where rt.expiresAt < :now order by rt.expiresAt")
+    List<UUID> findExpiredIds(@Param("now") Instant now, Limit limit);
+
+    // re-checks expiry: replaceForUser may have reused the row since its id was selected
+    @Modifying
+    @Query("delete from RefreshToken rt where rt.id in :ids and rt.expiresAt < :now")
+    int deleteExpired(@Param("ids") List<UUID> ids, @Param("now") Instant now);
+}
@@ -1,51 +1,155 @@
 package com.kobipast.userservice.persistence.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.kobipast.userservice.persistence.entity.RefreshToken;
+import com.kobipast.userservice.persistence.entity.Role;
 import com.kobipast.userservice.persistence.entity.User;
 import com.kobipast.userservice.persistence.repository.RefreshTokenRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.UUID;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Transactional
 @Service
 public class RefreshTokenService {
 
+    // Raw token handed to the client once; only its digest is stored.
+    public record IssuedRefreshToken(String token, Instant expiresAt) {}
+
+    // Everything needed to mint an access token, so a refresh never has to load the user.
+    public record RefreshSession(String userId, String email, Role role, Instant expiresAt) {}
+
+    public record Rotation(IssuedRefreshToken refreshToken, RefreshSession session) {}
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private final RefreshTokenRepository repo;
 
-    public RefreshTokenService(RefreshTokenRepository repo) {
+    // hot set: token digest -> session, bounded and expiring with the token
+    private final Cache<String, RefreshSession> sessions;
+    // userId -> digest of the user's current token, to drop the old entry when a token is replaced
+    private final Map<String, String> digestByUser = new ConcurrentHashMap<>();
+
+    public RefreshTokenService(RefreshTokenRepository repo, @Value("${refresh-token.cache.max-size:10000}") long maxSize) {
         this.repo = repo;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String digest, RefreshSession s) ->
+                        Duration.between(Instant.now(), s.expiresAt())))
+                .removalListener((String digest, RefreshSession s, RemovalCause cause) -> {
+                    if (s != null && cause != RemovalCause.REPLACED) {
+                        digestByUser.remove(s.userId(), digest);
+                    }
+                })
+                .build();
     }
 
     @Transactional
-    public RefreshToken create(User user) {
-        RefreshToken rt = repo.findByUser(user)
-                .orElseGet(() -> {
-                    RefreshToken x = new RefreshToken();
-                    x.setUser(user);
-                    return x;
-                });
+    public IssuedRefreshToken create(User user) {
+        String token = newToken();
+        String digest = sha256(token);
+        Instant expiresAt = Instant.now().plus(7, ChronoUnit.DAYS);
+
+        // one statement for returning users instead of findByUser + save
+        if (repo.replaceForUser(user.getId(), digest, expiresAt) == 0) {
+            RefreshToken rt = new RefreshToken();
+            rt.setUser(user);
+            rt.setTokenHash(digest);
+            rt.setExpiresAt(expiresAt);
+            repo.save(rt);
+        }
 
-        rt.setToken(UUID.randomUUID().toString());
-        rt.setExpiresAt(Instant.now().plus(7, ChronoUnit.DAYS));
-        return repo.save(rt);
+        cache(digest, new RefreshSession(user.getId(), user.getEmail(), user.getRole(), expiresAt));
+        return new IssuedRefreshToken(token, expiresAt);
     }
 
-    public RefreshToken verify(String token) {
-        RefreshToken rt = repo.findByToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+    /**
+     * Verifies the token and rotates it: the presented token becomes invalid and a new one is issued.
+     * Served from the hot set when possible - only the rotate update touches the database.
+     */
+    public Rotation rotate(String token) {
+        String digest = sha256(token);
+        RefreshSession session = sessions.getIfPresent(digest);
+        if (session == null) {
+            RefreshToken rt = repo.findWithUserByTokenHash(digest)
+                    .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+            User user = rt.getUser();
+            session = new RefreshSession(user.getId(), user.getEmail(), user.getRole(), rt.getExpiresAt());
+        }
 
-        if (rt.getExpiresAt().isBefore(Instant.now())) {
-            repo.delete(rt);
+        // the row itself is reclaimed by ExpiredRowSweeper, not on the request path
+        if (session.expiresAt().isBefore(Instant.now())) {
+            sessions.invalidate(digest);
             throw new RuntimeException("Refresh token expired");
         }
-        return rt;
+
+        String next = newToken();
+        String nextDigest = sha256(next);
+        // keep the original expiry - rotation doesn't extend the session
+        if (repo.rotate(digest, nextDigest, session.expiresAt()) == 0) {
+            sessions.invalidate(digest);
+            throw new RuntimeException("Invalid refresh token");
+        }
+
+        RefreshSession rotated = new RefreshSession(session.userId(), session.email(), session.role(), session.expiresAt());
+        cache(nextDigest, rotated);
+        return new Rotation(new IssuedRefreshToken(next, rotated.expiresAt()), rotated);
     }
 
     public void deleteByToken(String token) {
-        repo.findByToken(token).ifPresent(repo::delete);
+        String digest = sha256(token);
+        repo.deleteByTokenHash(digest);
+        sessions.invalidate(digest);
+    }
+
+    public void deleteForUser(String userId) {
+        repo.deleteByUserId(userId);
+        evictUser(userId);
+    }
+
+    // Cached sessions carry the role; drop them when the user changes so the next refresh reloads it.
+    public void evictUser(String userId) {
+        String digest = digestByUser.remove(userId);
+        if (digest != null) {
+            sessions.invalidate(digest);
+        }
+    }
+
+    private void cache(String digest, RefreshSession session) {
+        String previous = digestByUser.put(session.userId(), digest);
+        if (previous != null && !previous.equals(digest)) {
+            sessions.invalidate(previous);
+        }
+        sessions.put(digest, session);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -2,8 +2,10 @@ package com.kobipast.userservice.persistence.service;
 
 import com.kobipast.userservice.dto.UserDto;
 import com.kobipast.userservice.mapper.UserMapper;
+import com.kobipast.userservice.persistence.entity.Role;
 import com.kobipast.userservice.persistence.entity.User;
 import com.kobipast.userservice.persistence.repository.UserRepository;
+import com.kobipast.userservice.security.RevokedSubjectRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,9 +17,15 @@ public class UserService {
 
     private final UserRepository repository;
 
-    public UserService(UserRepository repository, UserMapper userMapper) {
+    private final RevokedSubjectRegistry revokedSubjectRegistry;
+
+    private final RefreshTokenService refreshTokenService;
+
+    public UserService(UserRepository repository, UserMapper userMapper, RevokedSubjectRegistry revokedSubjectRegistry, RefreshTokenService refreshTokenService) {
         this.repository = repository;
         this.userMapper = userMapper;
+        this.revokedSubjectRegistry = revokedSubjectRegistry;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public List<User> getAll() {
@@ -38,8 +46,22 @@ public class UserService {
         return repository.save(user);
     }
 
+    public User changeRole(String id, Role role) {
+        User user = getById(id);
+        user.setRole(role);
+        User saved = repository.save(user);
+        // tokens and cached refresh sessions still carry the old role
+        revokedSubjectRegistry.revoke(saved.getEmail());
+        refreshTokenService.evictUser(saved.getId());
+        return saved;
+    }
+
     public void delete(String id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(user -> {
+            refreshTokenService.deleteForUser(user.getId());
+            repository.delete(user);
+            revokedSubjectRegistry.revoke(user.getEmail());
+        });
     }
 
     public UserDto getByEmail(String email) {
@@ -7,9 +7,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -23,11 +25,21 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     @Autowired
-    private JwtService jwtService;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private RevokedSubjectRegistry revokedSubjectRegistry;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    // true: build the principal from the verified claims only, without loading the user row
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
@@ -40,14 +52,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        // one signature check per distinct token, then served from cache until the token expires
+        VerifiedToken token = verifiedTokenCache.verify(jwt);
+        userEmail = token.subject();
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.validateToken(jwt, userEmail)) {
+        // logged-out tokens; a Bloom filter miss answers this without touching the buckets
+        if (tokenDenylist.isRevoked(token)) {
+            log.info("JwtAuthenticationFilter::Token {} is on the denylist", token.jti());
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-                List<String> roles = jwtService.extractRoles(jwt);
-                List<SimpleGrantedAuthority> authorities = roles.stream().map(SimpleGrantedAuthority::new).toList();
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            List<SimpleGrantedAuthority> authorities = token.roles().stream().map(SimpleGrantedAuthority::new).toList();
+            UserDetails userDetails = resolvePrincipal(token, authorities);
+            if (userDetails != null && !token.isExpired()) {
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -62,6 +81,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(VerifiedToken token, List<SimpleGrantedAuthority> authorities) {
+        if (!statelessPrincipal) {
+            return this.userDetailsService.loadUserByUsername(token.subject());
+        }
+
+        if (revokedSubjectRegistry.isRevoked(token)) {
+            log.info("JwtAuthenticationFilter::Token revoked for subject {}", token.subject());
+            return null;
+        }
+        return User.withUsername(token.subject())
+                .password("")
+                .authorities(authorities)
+                .build();
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
@@ -0,0 +1,189 @@
+package com.kobipast.userservice.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asymmetric signing keys indexed by kid.
+ * The ring always holds the active key, the next key (already published so verifiers can cache it
+ * before it signs anything) and retired keys that may still verify live tokens.
+ *
+ * <p>With {@code jwt.signing.keystore.location} set, the ring is the key entries of that PKCS12 keystore
+ * instead, so every replica signs with the same key and tokens survive restarts; {@code active-alias}
+ * signs and every other entry is published for verification only. Rotation is then an operator step:
+ * add the next key and roll it out, switch {@code active-alias} and roll out again, and drop the old
+ * entry once a token lifetime has passed. Without a keystore, keys are generated in memory and rotate on
+ * a schedule - fine for a single instance, but every restart invalidates issued tokens.</p>
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    public record SigningKey(String kid, KeyPair keyPair, Instant retiredAt) {
+        SigningKey retire(Instant at) {
+            return new SigningKey(kid, keyPair, at);
+        }
+    }
+
+    private final String algorithm;
+    private final Duration tokenLifetime;
+    private final boolean fromKeystore;
+
+    // guarded by "this" for writes; readers get an immutable snapshot
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey active;
+    private volatile SigningKey next;
+
+    public JwtKeyRing(
+            @Value("${jwt.signing.algorithm:ES256}") String algorithm,
+            @Value("${jwt.expiration}") long expirationMillis,
+            @Value("${jwt.signing.keystore.location:}") String keystoreLocation,
+            @Value("${jwt.signing.keystore.password:}") String keystorePassword,
+            @Value("${jwt.signing.keystore.active-alias:}") String activeAlias) {
+        this.algorithm = algorithm;
+        this.tokenLifetime = Duration.ofMillis(expirationMillis);
+        this.fromKeystore = StringUtils.hasText(keystoreLocation);
+        if (fromKeystore) {
+            List<SigningKey> ring = load(keystoreLocation, keystorePassword.toCharArray(), activeAlias);
+            publish(ring);
+            log.info("JwtKeyRing: {} keys from {}, active kid={}", ring.size(), keystoreLocation, active.kid());
+        } else {
+            this.active = newKey();
+            this.next = newKey();
+            publish(List.of(active, next));
+            log.warn("JwtKeyRing: no jwt.signing.keystore.location - signing keys are generated in memory, "
+                    + "so tokens are lost on restart and not accepted by other replicas");
+        }
+    }
+
+    public SigningKey active() {
+        return active;
+    }
+
+    public SignatureAlgorithm signatureAlgorithm() {
+        return switch (algorithm) {
+            case "ES256" -> Jwts.SIG.ES256;
+            case "EdDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+    }
+
+    public PublicKey verificationKey(String kid) {
+        SigningKey key = kid == null ? null : keys.get(kid);
+        return key == null ? null : key.keyPair().getPublic();
+    }
+
+    @Scheduled(fixedRateString = "${jwt.signing.rotation-interval:PT24H}", initialDelayString = "${jwt.signing.rotation-interval:PT24H}")
+    public synchronized void rotate() {
+        if (fromKeystore) {
+            // every replica must switch at once, so keystore keys only change through a rollout
+            return;
+        }
+        Instant now = Instant.now();
+        List<SigningKey> ring = new ArrayList<>();
+
+        // retired keys are dropped once every token they signed has expired
+        for (SigningKey key : keys.values()) {
+            if (key.retiredAt() != null && key.retiredAt().plus(tokenLifetime).isAfter(now)) {
+                ring.add(key);
+            }
+        }
+        ring.add(active.retire(now));
+
+        active = next;
+        next = newKey();
+        ring.add(active);
+        ring.add(next);
+        publish(ring);
+
+        log.info("JwtKeyRing::rotate active kid={}, next kid={}, keys in ring={}", active.kid(), next.kid(), ring.size());
+    }
+
+    /**
+     * Public half of every key in the ring as a JWK Set (RFC 7517).
+     */
+    public Map<String, Object> publicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keys.values()) {
+            Jwk<?> jwk = Jwks.builder()
+                    .key(key.keyPair().getPublic())
+                    .id(key.kid())
+                    .algorithm(algorithm)
+                    .publicKeyUse("sig")
+                    .build();
+            jwks.add(new LinkedHashMap<>(jwk));
+        }
+        return Map.of("keys", jwks);
+    }
+
+    private void publish(List<SigningKey> ring) {
+        Map<String, SigningKey> snapshot = new LinkedHashMap<>();
+        ring.forEach(k -> snapshot.put(k.kid(), k));
+        keys = Collections.unmodifiableMap(snapshot);
+    }
+
+    private List<SigningKey> load(String location, char[] password, String activeAlias) {
+        List<SigningKey> ring = new ArrayList<>();
+        try (InputStream in = new DefaultResourceLoader().getResource(location).getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (!keyStore.isKeyEntry(alias)) {
+                    continue;
+                }
+                PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, password);
+                PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+                SigningKey key = new SigningKey(kidOf(publicKey), new KeyPair(publicKey, privateKey), null);
+                ring.add(key);
+                if (alias.equals(activeAlias)) {
+                    active = key;
+                }
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load JWT signing keys from " + location, e);
+        }
+        if (active == null) {
+            throw new IllegalStateException("jwt.signing.keystore.active-alias '" + activeAlias + "' is not a key entry in " + location);
+        }
+        return ring;
+    }
+
+    private static String kidOf(PublicKey publicKey) {
+        // a thumbprint, so every instance derives the same kid for the same key
+        return Jwks.builder().key(publicKey).idFromThumbprint().build().getId();
+    }
+
+    private SigningKey newKey() {
+        KeyPair pair = switch (algorithm) {
+            case "ES256" -> Jwts.SIG.ES256.keyPair().build();
+            case "EdDSA" -> Jwks.CRV.Ed25519.keyPair().build();
+            default -> throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        };
+        return new SigningKey(kidOf(pair.getPublic()), pair, null);
+    }
+}
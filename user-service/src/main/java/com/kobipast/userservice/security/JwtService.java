@@ -1,31 +1,66 @@
 package com.kobipast.userservice.security;
 
+import com.kobipast.userservice.persistence.entity.Role;
 import com.kobipast.userservice.persistence.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // iat only has second precision; revocation (RevokedSubjectRegistry) needs to order tokens within a second
+    static final String ISSUED_AT_MILLIS = "iat_ms";
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // Parser is immutable and thread-safe - build it once; the verification key is picked by the token's kid.
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return keyRing.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Checks the signature and expiration once and returns every claim the filter needs.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                rolesOf(claims),
+                issuedAtOf(claims),
+                claims.getExpiration().toInstant()
+        );
     }
 
     public String extractUsername(String token) {
@@ -42,9 +77,7 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -54,18 +87,27 @@ public class JwtService {
     }
 
     public String generateToken(User user) {
+        return generateToken(user.getEmail(), user.getRole());
+    }
+
+    public String generateToken(String email, Role role) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", List.of("ROLE_" + user.getRole().name()));
-        return createToken(claims, user.getEmail());
+        claims.put("roles", List.of("ROLE_" + role.name()));
+        return createToken(claims, email);
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        JwtKeyRing.SigningKey signingKey = keyRing.active();
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
                 .claims(claims)
+                .claim(ISSUED_AT_MILLIS, now)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey.keyPair().getPrivate(), keyRing.signatureAlgorithm())
                 .compact();
     }
 
@@ -74,14 +116,19 @@ public class JwtService {
         return (extractedUsername.equals(username) && !isTokenExpired(token));
     }
 
-    @SuppressWarnings("unchecked")
     public java.util.List<String> extractRoles(String token) {
-        return extractClaim(token, claims -> (java.util.List<String>) claims.get("roles"));
+        return extractClaim(token, JwtService::rolesOf);
     }
 
-}
-
-
-
+    private static Instant issuedAtOf(Claims claims) {
+        Number millis = claims.get(ISSUED_AT_MILLIS, Number.class);
+        return millis != null ? Instant.ofEpochMilli(millis.longValue()) : claims.getIssuedAt().toInstant();
+    }
 
+    @SuppressWarnings("unchecked")
+    private static List<String> rolesOf(Claims claims) {
+        List<String> roles = (List<String>) claims.get("roles");
+        return roles == null ? List.of() : List.copyOf(roles);
+    }
 
+}
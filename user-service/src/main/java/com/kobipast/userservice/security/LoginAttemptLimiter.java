@@ -0,0 +1,246 @@
+package com.kobipast.userservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts failed logins per account and client IP pair, and per client IP, in a sliding window, so
+ * credential stuffing is rejected before it reaches bcrypt or the database.
+ * An account is never locked as a whole: that would let anyone lock out any known email from everywhere.
+ * The IP limit is much higher than the pair limit, since many users can share an address behind NAT.
+ * Every login attempt is counted when it starts - before the password is checked - so a parallel burst
+ * cannot get past the limit; a successful login takes its attempt back.
+ * Keys are spread over lock stripes; each stripe is an access-ordered map capped at
+ * maxKeys / stripes entries, so idle keys are evicted first and memory stays bounded.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private final int maxFailures;
+    private final int maxFailuresPerIp;
+    private final int buckets;
+    private final long bucketMillis;
+    private final Stripe[] stripes;
+
+    private final LongAdder blockedRequests = new LongAdder();
+    private final LongAdder failuresRecorded = new LongAdder();
+    private final LongAdder evictedKeys = new LongAdder();
+    private final Counter blockedCounter;
+    private final Counter failuresCounter;
+
+    public LoginAttemptLimiter(
+            @Value("${security.login-attempts.max-failures:5}") int maxFailures,
+            @Value("${security.login-attempts.max-failures-per-ip:100}") int maxFailuresPerIp,
+            @Value("${security.login-attempts.window:PT5M}") Duration window,
+            @Value("${security.login-attempts.buckets:10}") int buckets,
+            @Value("${security.login-attempts.stripes:16}") int stripeCount,
+            @Value("${security.login-attempts.max-keys:10000}") int maxKeys,
+            MeterRegistry meterRegistry) {
+        this.maxFailures = maxFailures;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.buckets = buckets;
+        this.bucketMillis = Math.max(1, window.toMillis() / buckets);
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, maxKeys / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.blockedCounter = Counter.builder("auth.login.blocked").register(meterRegistry);
+        this.failuresCounter = Counter.builder("auth.login.failures").register(meterRegistry);
+    }
+
+    // A login in progress; it counts as a failure unless it is reported as a success or released.
+    public record Attempt(String accountKey, String ipKey, long at) {
+    }
+
+    /**
+     * Counts the attempt against the account/IP pair and the IP, or throws
+     * {@link LoginAttemptsExceededException} without counting it if either is already at its limit.
+     */
+    public Attempt acquire(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        Attempt attempt = new Attempt(accountKey(email, clientIp), ipKey(clientIp), now);
+
+        long retryAfter = tryIncrement(attempt.accountKey(), maxFailures, now);
+        if (retryAfter == 0) {
+            retryAfter = tryIncrement(attempt.ipKey(), maxFailuresPerIp, now);
+            if (retryAfter > 0) {
+                decrement(attempt.accountKey(), now);
+            }
+        }
+        if (retryAfter > 0) {
+            blockedRequests.increment();
+            blockedCounter.increment();
+            throw new LoginAttemptsExceededException(Math.max(1, (retryAfter + 999) / 1000));
+        }
+        return attempt;
+    }
+
+    public void recordFailure(Attempt attempt) {
+        // already counted by acquire
+        failuresRecorded.increment();
+        failuresCounter.increment();
+    }
+
+    // A successful login clears the pair's counter; the IP only gets this attempt back.
+    public void recordSuccess(Attempt attempt) {
+        Stripe stripe = stripeFor(attempt.accountKey());
+        synchronized (stripe) {
+            stripe.windows.remove(attempt.accountKey());
+        }
+        decrement(attempt.ipKey(), attempt.at());
+    }
+
+    // The attempt ended without a verdict on the password (e.g. hashing capacity exhausted).
+    public void release(Attempt attempt) {
+        decrement(attempt.accountKey(), attempt.at());
+        decrement(attempt.ipKey(), attempt.at());
+    }
+
+    public Map<String, Object> stats() {
+        long now = System.currentTimeMillis();
+        int trackedKeys = 0;
+        int blockedKeys = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                trackedKeys += stripe.windows.size();
+                for (Window w : stripe.windows.values()) {
+                    if (w.count(now) >= w.limit) {
+                        blockedKeys++;
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedKeys", trackedKeys);
+        stats.put("blockedKeys", blockedKeys);
+        stats.put("blockedRequests", blockedRequests.sum());
+        stats.put("failuresRecorded", failuresRecorded.sum());
+        stats.put("evictedKeys", evictedKeys.sum());
+        stats.put("maxFailures", maxFailures);
+        stats.put("maxFailuresPerIp", maxFailuresPerIp);
+        stats.put("windowSeconds", bucketMillis * buckets / 1000);
+        return stats;
+    }
+
+    // 0 and counted if the key is below its limit; otherwise how long until it is, without counting
+    private long tryIncrement(String key, int limit, long now) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window w = stripe.windows.computeIfAbsent(key, k -> new Window(limit));
+            long retryAfter = w.retryAfterMillis(now);
+            if (retryAfter == 0) {
+                w.increment(now);
+            }
+            return retryAfter;
+        }
+    }
+
+    private void decrement(String key, long at) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Window w = stripe.windows.get(key);
+            if (w != null) {
+                w.decrement(at);
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static String accountKey(String email, String clientIp) {
+        return "account:" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT)) + "|" + clientIp;
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    private final class Stripe {
+        private final LinkedHashMap<String, Window> windows;
+
+        Stripe(int capacity) {
+            this.windows = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                    boolean evict = size() > capacity;
+                    if (evict) {
+                        evictedKeys.increment();
+                    }
+                    return evict;
+                }
+            };
+        }
+    }
+
+    // Ring of per-bucket failure counts; a bucket is reset lazily when its slot is reused.
+    private final class Window {
+        private final int limit;
+        private final long[] epochs = new long[buckets];
+        private final int[] counts = new int[buckets];
+
+        Window(int limit) {
+            this.limit = limit;
+        }
+
+        void increment(long now) {
+            long epoch = now / bucketMillis;
+            int idx = (int) (epoch % buckets);
+            if (epochs[idx] != epoch) {
+                epochs[idx] = epoch;
+                counts[idx] = 0;
+            }
+            counts[idx]++;
+        }
+
+        // only while the attempt's bucket is still in the window; an older one has already slid out
+        void decrement(long at) {
+            long epoch = at / bucketMillis;
+            int idx = (int) (epoch % buckets);
+            if (epochs[idx] == epoch && counts[idx] > 0) {
+                counts[idx]--;
+            }
+        }
+
+        int count(long now) {
+            long oldest = now / bucketMillis - buckets + 1;
+            int total = 0;
+            for (int i = 0; i < buckets; i++) {
+                if (epochs[i] >= oldest) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+
+        // How long until enough old buckets slide out for the count to drop below the limit.
+        long retryAfterMillis(long now) {
+            int total = count(now);
+            if (total < limit) {
+                return 0;
+            }
+            long current = now / bucketMillis;
+            for (long epoch = current - buckets + 1; epoch <= current; epoch++) {
+                int idx = (int) (epoch % buckets);
+                if (epochs[idx] == epoch) {
+                    total -= counts[idx];
+                }
+                if (total < limit) {
+                    return (epoch + buckets) * bucketMillis - now;
+                }
+            }
+            return bucketMillis * buckets;
+        }
+    }
+}
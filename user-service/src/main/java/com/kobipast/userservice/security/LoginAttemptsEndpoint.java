@@ -0,0 +1,24 @@
+package com.kobipast.userservice.security;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/loginattempts - current attack load seen by the login limiter.
+@Component
+@Endpoint(id = "loginattempts")
+public class LoginAttemptsEndpoint {
+
+    private final LoginAttemptLimiter limiter;
+
+    public LoginAttemptsEndpoint(LoginAttemptLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return limiter.stats();
+    }
+}
@@ -0,0 +1,12 @@
+package com.kobipast.userservice.security;
+
+public class LoginAttemptsExceededException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public LoginAttemptsExceededException(long retryAfterSeconds) {
+        super("Too many failed login attempts");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
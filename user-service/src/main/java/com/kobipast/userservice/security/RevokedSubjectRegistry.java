@@ -0,0 +1,45 @@
+package com.kobipast.userservice.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In stateless mode the filter never reads the user row, so deleted users and role changes
+ * are tracked here instead: every token issued for the subject up to the revocation is rejected.
+ */
+@Component
+public class RevokedSubjectRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedSubjectRegistry.class);
+
+    private final Map<String, Instant> revokedAt = new ConcurrentHashMap<>();
+    private final Duration tokenLifetime;
+
+    public RevokedSubjectRegistry(@Value("${jwt.expiration}") long expirationMillis) {
+        this.tokenLifetime = Duration.ofMillis(expirationMillis);
+    }
+
+    public void revoke(String subject) {
+        // same clock and precision as the tokens' issue time (JwtService): only tokens issued up to this
+        // millisecond are caught, not a re-login right after the change
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        revokedAt.put(subject, now);
+        log.info("RevokedSubjectRegistry::revoke tokens issued until {} for subject {}", now, subject);
+
+        // entries older than a token lifetime can't match any live token anymore
+        Instant horizon = now.minus(tokenLifetime);
+        revokedAt.values().removeIf(at -> at.isBefore(horizon));
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Instant at = revokedAt.get(token.subject());
+        return at != null && !token.issuedAt().isAfter(at);
+    }
+}
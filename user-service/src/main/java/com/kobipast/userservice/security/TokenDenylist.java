@@ -0,0 +1,170 @@
+package com.kobipast.userservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked access tokens, by jti, until they expire on their own.
+ * Entries live in buckets keyed by the token's expiry, so a bucket whose end has passed is dropped
+ * whole instead of scanned. A Bloom filter in front answers the common "not revoked" case with
+ * one memory probe; only a filter hit looks at the bucket.
+ * Only this instance consults it. order-service verifies tokens locally and never sees the list, so a
+ * logged-out token keeps working there until it expires; access tokens are short-lived (jwt.expiration)
+ * for that reason, and sessions go on through refresh tokens.
+ */
+@Component
+public class TokenDenylist {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDenylist.class);
+
+    private final long bucketSeconds;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // bucket index (expiry / bucket width, rounded up) -> revoked jtis expiring in that bucket
+    private final NavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    // rebuilt from the buckets on purge; writes are serialized on "this", reads are lock-free
+    private volatile BloomFilter filter;
+
+    private final Counter rejected;
+    private final Counter filterFalsePositives;
+
+    public TokenDenylist(
+            @Value("${jwt.denylist.bucket-width:PT5M}") Duration bucketWidth,
+            @Value("${jwt.denylist.expected-entries:100000}") int expectedEntries,
+            @Value("${jwt.denylist.false-positive-rate:0.001}") double falsePositiveRate,
+            MeterRegistry meterRegistry) {
+        this.bucketSeconds = Math.max(1, bucketWidth.toSeconds());
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+
+        this.rejected = Counter.builder("auth.denylist.rejected").register(meterRegistry);
+        this.filterFalsePositives = Counter.builder("auth.denylist.filter.false-positives").register(meterRegistry);
+        Gauge.builder("auth.denylist.size", this, TokenDenylist::size).register(meterRegistry);
+        Gauge.builder("auth.denylist.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    public synchronized void revoke(String jti, Instant expiresAt) {
+        if (jti == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        buckets.computeIfAbsent(bucketOf(expiresAt), b -> ConcurrentHashMap.newKeySet()).add(jti);
+        filter.put(jti);
+    }
+
+    public void revoke(VerifiedToken token) {
+        revoke(token.jti(), token.expiresAt());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.jti() == null || !filter.mightContain(token.jti())) {
+            return false;
+        }
+        Set<String> bucket = buckets.get(bucketOf(token.expiresAt()));
+        if (bucket != null && bucket.contains(token.jti())) {
+            rejected.increment();
+            return true;
+        }
+        filterFalsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Drops every bucket whose tokens have all expired and rebuilds the filter from what is left,
+     * so the false-positive rate doesn't creep up with entries that can no longer match.
+     */
+    @Scheduled(fixedDelayString = "${jwt.denylist.bucket-width:PT5M}", initialDelayString = "${jwt.denylist.bucket-width:PT5M}")
+    public synchronized void purgeExpired() {
+        // a bucket's end is (index * width); everything in it expired once that has passed
+        long firstLive = Instant.now().getEpochSecond() / bucketSeconds + 1;
+        NavigableMap<Long, Set<String>> expired = buckets.headMap(firstLive, false);
+        if (expired.isEmpty()) {
+            return;
+        }
+        int dropped = expired.size();
+        expired.clear();
+
+        BloomFilter rebuilt = new BloomFilter(expectedEntries, falsePositiveRate);
+        buckets.values().forEach(bucket -> bucket.forEach(rebuilt::put));
+        filter = rebuilt;
+        log.debug("TokenDenylist::purgeExpired dropped {} buckets, {} entries left", dropped, size());
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        // round up so a bucket is only dropped after its latest expiry
+        return -Math.floorDiv(-expiresAt.getEpochSecond(), bucketSeconds);
+    }
+
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashes;
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            int n = Math.max(1, expectedEntries);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        void put(String value) {
+            long h = hash(value);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits.getAndAccumulate(bit >>> 6, 1L << bit, (word, mask) -> word | mask);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h = hash(value);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a followed by a murmur3 finalizer; the halves feed double hashing
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe1a85ec5L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
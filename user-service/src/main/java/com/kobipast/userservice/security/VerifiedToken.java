@@ -0,0 +1,17 @@
+package com.kobipast.userservice.security;
+
+import java.time.Instant;
+import java.util.List;
+
+// Claims of a token whose signature was already checked - safe to reuse for the token's lifetime.
+public record VerifiedToken(
+        String jti,
+        String subject,
+        List<String> roles,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+}
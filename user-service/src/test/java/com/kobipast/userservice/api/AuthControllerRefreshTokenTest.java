@@ -0,0 +1,68 @@
+package com.kobipast.userservice.api;
+
+import com.kobipast.userservice.persistence.repository.RefreshTokenRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthControllerRefreshTokenTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void refresh_rotatesToken_andRejectsReuseOfTheOldOne() throws Exception {
+        Cookie first = mvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "name": "Rita", "email": "rotate-refresh@example.com", "password": "secret123" }
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getCookie("refreshToken");
+        assertNotNull(first);
+
+        // only the digest is persisted, never the raw token
+        assertTrue(refreshTokenRepository.findAll().stream().noneMatch(rt -> rt.getTokenHash().equals(first.getValue())));
+
+        Cookie second = mvc.perform(post("/auth/refresh").cookie(first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andReturn().getResponse().getCookie("refreshToken");
+        assertNotNull(second);
+        assertNotEquals(first.getValue(), second.getValue());
+
+        // the spent token is rejected, the rotated one keeps working
+        mvc.perform(post("/auth/refresh").cookie(first))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/auth/refresh").cookie(second))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logout_revokesRefreshToken() throws Exception {
+        Cookie cookie = mvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "name": "Lou", "email": "logout-refresh@example.com", "password": "secret123" }
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getCookie("refreshToken");
+
+        mvc.perform(post("/auth/logout").cookie(cookie))
+                .andExpect(status().isNoContent());
+        mvc.perform(post("/auth/refresh").cookie(cookie))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,91 @@
+package com.kobipast.userservice.api;
+
+import com.jayway.jsonpath.JsonPath;
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.repository.UserRepository;
+import com.kobipast.userservice.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.stateless-principal=true")
+@AutoConfigureMockMvc
+class UserControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    JwtService jwtService;
+    @Autowired
+    UserRepository userRepository;
+
+    private final String AUTH = "Authorization";
+
+    private String admin() {
+        return "Bearer " + jwtService.generateToken("admin@example.com", Role.ADMIN);
+    }
+
+    private String register(String email) throws Exception {
+        MvcResult result = mvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"name\": \"Uma\", \"email\": \"" + email + "\", \"password\": \"secret123\" }"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return "Bearer " + JsonPath.read(result.getResponse().getContentAsString(), "$.token");
+    }
+
+    @Test
+    void changeRole_updatesTheUser_andRevokesTokensCarryingTheOldRole() throws Exception {
+        String token = register("promoted@example.com");
+        String id = userRepository.findByEmail("promoted@example.com").orElseThrow().getId();
+        mvc.perform(get("/users/me").header(AUTH, token))
+                .andExpect(status().isOk());
+
+        mvc.perform(put("/users/{id}/role", id).header(AUTH, admin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"role\": \"ADMIN\" }"))
+                .andExpect(status().isOk());
+
+        assertEquals(Role.ADMIN, userRepository.findById(id).orElseThrow().getRole());
+        mvc.perform(get("/users/me").header(AUTH, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void delete_removesTheUser_andRevokesItsTokens() throws Exception {
+        String token = register("deleted@example.com");
+        String id = userRepository.findByEmail("deleted@example.com").orElseThrow().getId();
+
+        mvc.perform(delete("/users/{id}", id).header(AUTH, admin()))
+                .andExpect(status().isNoContent());
+
+        assertTrue(userRepository.findById(id).isEmpty());
+        mvc.perform(get("/architecture/trace").header(AUTH, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void changeRoleAndDelete_requireAdmin() throws Exception {
+        String token = register("not-admin@example.com");
+        String id = userRepository.findByEmail("not-admin@example.com").orElseThrow().getId();
+
+        mvc.perform(put("/users/{id}/role", id).header(AUTH, token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"role\": \"ADMIN\" }"))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/users/{id}", id).header(AUTH, token))
+                .andExpect(status().isForbidden());
+    }
+}
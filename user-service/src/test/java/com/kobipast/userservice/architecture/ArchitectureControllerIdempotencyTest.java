@@ -1,13 +1,21 @@
 package com.kobipast.userservice.architecture;
 
+import com.kobipast.userservice.architecture.idempotency.IdempotencyFilter;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyKeyspace;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyRecord;
 import com.kobipast.userservice.architecture.idempotency.IdempotencyRecordRepository;
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import com.kobipast.userservice.security.JwtService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -15,15 +23,21 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
-@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureMockMvc
 class ArchitectureControllerIdempotencyTest {
 
+    private static final String CALLER = "idem-user@example.com";
+
     @Autowired MockMvc mvc;
     @Autowired IdempotencyRecordRepository repo;
+    @Autowired JwtService jwtService;
+
+    private String token;
 
     @BeforeEach
     void cleanup() {
         repo.deleteAll();
+        token = "Bearer " + jwtService.generateToken(new User("u", CALLER, "x", Role.USER));
     }
 
     @Test
@@ -33,32 +47,69 @@ class ArchitectureControllerIdempotencyTest {
                 { "action": "PAY", "amount": 50 }
                 """;
 
-        // 1) first call -> processed (replay=false)
-        mvc.perform(post("/architecture/idempotency")
+        // 1) first call -> processed
+        MvcResult first = mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
                         .header("Idempotency-Key", key)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(header().exists(HttpHeaders.ETAG))
                 .andExpect(jsonPath("$.message", is("Processed: PAY amount=50")))
-                .andExpect(jsonPath("$.replay", is(false)));
+                .andReturn();
 
-        // 2) second call with same key+body -> replay=true (cached)
-        mvc.perform(post("/architecture/idempotency")
+        // 2) second call with same key+body -> the stored response, headers included
+        MvcResult second = mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
                         .header("Idempotency-Key", key)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isCreated())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.message", is("Processed: PAY amount=50")))
-                .andExpect(jsonPath("$.replay", is(true)));
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(header().string(HttpHeaders.LOCATION, first.getResponse().getHeader(HttpHeaders.LOCATION)))
+                .andExpect(header().string(HttpHeaders.ETAG, first.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andReturn();
 
+        org.junit.jupiter.api.Assertions.assertEquals(
+                first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
         // still only one record persisted
         org.junit.jupiter.api.Assertions.assertEquals(1, repo.count());
     }
 
+    @Test
+    void idempotency_sameKeyFromAnotherCaller_executesSeparately() throws Exception {
+        String otherToken = "Bearer " + jwtService.generateToken(new User("u", "other-" + CALLER, "x", Role.USER));
+        String body = """
+                { "action": "PAY", "amount": 60 }
+                """;
+
+        String firstLocation = mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
+                        .header("Idempotency-Key", "idem-shared")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", otherToken)
+                        .header("Idempotency-Key", "idem-shared")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andExpect(result -> org.junit.jupiter.api.Assertions.assertNotEquals(
+                        firstLocation, result.getResponse().getHeader(HttpHeaders.LOCATION)));
+
+        org.junit.jupiter.api.Assertions.assertEquals(2, repo.count());
+    }
+
     @Test
     void idempotency_sameKeyDifferentBody_returns409Conflict() throws Exception {
         String key = "idem-456";
@@ -73,6 +124,7 @@ class ArchitectureControllerIdempotencyTest {
 
         // first call ok
         mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
                         .header("Idempotency-Key", key)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -81,6 +133,7 @@ class ArchitectureControllerIdempotencyTest {
 
         // second call with same key but different request -> conflict
         mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
                         .header("Idempotency-Key", key)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
@@ -94,4 +147,84 @@ class ArchitectureControllerIdempotencyTest {
                 .andExpect(jsonPath("$.type", is("https://example.com/problems/idempotency-conflict")))
                 .andExpect(jsonPath("$.instance", is("/architecture/idempotency")));
     }
+
+    @Test
+    void idempotency_staleRecord_isTreatedAsAbsent_andOverwrittenInPlace() throws Exception {
+        String key = "idem-789";
+        String body = """
+                { "action": "PAY", "amount": 70 }
+                """;
+
+        // a stale row the sweeper hasn't reclaimed yet (e.g. written before a restart)
+        String scope = "POST:ArchitectureController.idempotency|" + CALLER;
+        IdempotencyRecord stale = new IdempotencyRecord();
+        stale.setShard(IdempotencyKeyspace.shardOf(scope, key));
+        stale.setIdempotencyKey(key);
+        stale.setScope(scope);
+        stale.setRequestHash("0".repeat(64));
+        stale.setStatusCode(201);
+        stale.setResponseBodyJson("{}");
+        stale.setCreatedAt(java.time.Instant.now().minusSeconds(700));
+        stale.setExpiresAt(java.time.Instant.now().minusSeconds(1));
+        stale = repo.save(stale);
+
+        mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+
+        IdempotencyRecord refreshed = repo.findAll().get(0);
+        org.junit.jupiter.api.Assertions.assertEquals(1, repo.count());
+        org.junit.jupiter.api.Assertions.assertEquals(stale.getId(), refreshed.getId());
+        org.junit.jupiter.api.Assertions.assertTrue(refreshed.getExpiresAt().isAfter(java.time.Instant.now()));
+        // the legacy-format row is rewritten in the binary format
+        org.junit.jupiter.api.Assertions.assertNull(refreshed.getResponseBodyJson());
+        org.junit.jupiter.api.Assertions.assertEquals(32, refreshed.getRequestDigest().length);
+    }
+
+    @Test
+    void idempotency_withoutKey_isRejected() throws Exception {
+        mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "action": "PAY", "amount": 80 }
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith("application/problem+json"))
+                .andExpect(jsonPath("$.type", is("https://example.com/problems/idempotency-key-required")));
+
+        org.junit.jupiter.api.Assertions.assertEquals(0, repo.count());
+    }
+
+    @Test
+    void idempotency_callerTooLongForTheScopeColumn_isStillStoredAndReplayed() throws Exception {
+        String longToken = "Bearer " + jwtService.generateToken(new User("u", "x".repeat(190) + "@example.com", "x", Role.USER));
+        String body = """
+                { "action": "PAY", "amount": 90 }
+                """;
+
+        String firstLocation = mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", longToken)
+                        .header("Idempotency-Key", "idem-long-caller")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mvc.perform(post("/architecture/idempotency")
+                        .header("Authorization", longToken)
+                        .header("Idempotency-Key", "idem-long-caller")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(header().string(HttpHeaders.LOCATION, firstLocation));
+
+        org.junit.jupiter.api.Assertions.assertEquals(1, repo.count());
+        org.junit.jupiter.api.Assertions.assertTrue(repo.findAll().get(0).getScope().startsWith("sha256:"));
+    }
 }
@@ -0,0 +1,138 @@
+package com.kobipast.userservice.architecture;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyFilter;
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import com.kobipast.userservice.security.JwtService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "orders.client.mode=reactive")
+@AutoConfigureMockMvc
+class ArchitectureControllerReactiveOrdersTest {
+
+    static final WireMockServer orderService = new WireMockServer(options().dynamicPort());
+
+    static {
+        orderService.start();
+    }
+
+    @DynamicPropertySource
+    static void orderServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("orders.client.base-url", orderService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopOrderService() {
+        orderService.stop();
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwtService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        orderService.resetAll();
+        token = "Bearer " + jwtService.generateToken(new User("u", "reactive-user@example.com", "x", Role.USER));
+    }
+
+    @Test
+    void getOrder_isDeferred_andRelaysCallerHeadersOnRetries() throws Exception {
+        orderService.stubFor(WireMock.get("/orders/o-1").inScenario("flaky").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(503))
+                .willSetStateTo("recovered"));
+        orderService.stubFor(WireMock.get("/orders/o-1").inScenario("flaky").whenScenarioStateIs("recovered")
+                .willReturn(okJson("""
+                        { "id": "o-1", "userId": "reactive-user@example.com", "status": "CREATED", "amount": 7, "createdAt": "2026-01-01T00:00:00Z", "version": 0 }
+                        """)));
+
+        MvcResult started = mvc.perform(get("/architecture/orders/o-1")
+                        .header("Authorization", token)
+                        .header("X-Correlation-Id", "cid-reactive"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.order.id", is("o-1")));
+
+        // the retry resubscribes off the request thread; the captured headers still go out
+        orderService.verify(2, getRequestedFor(urlEqualTo("/orders/o-1"))
+                .withHeader("Authorization", equalTo(token))
+                .withHeader("X-Correlation-Id", equalTo("cid-reactive")));
+    }
+
+    @Test
+    void updateStatus_conflictIsPassedThrough() throws Exception {
+        orderService.stubFor(WireMock.patch(urlEqualTo("/orders/o-2/status"))
+                .willReturn(aResponse().withStatus(409)
+                        .withHeader("Content-Type", MediaType.APPLICATION_PROBLEM_JSON_VALUE)
+                        .withBody("{\"title\":\"Optimistic lock conflict\",\"status\":409}")));
+
+        MvcResult started = mvc.perform(patch("/architecture/orders/o-2/status")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"status\": \"PAID\", \"version\": 0 }"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", is("Optimistic lock conflict")));
+    }
+
+    @Test
+    void createOrder_withIdempotencyKey_isCapturedOnTheAsyncDispatch_andReplayed() throws Exception {
+        orderService.stubFor(WireMock.post("/orders").willReturn(okJson("""
+                { "id": "o-3", "userId": "reactive-user@example.com", "status": "CREATED", "amount": 3, "createdAt": "2026-01-01T00:00:00Z", "version": 0 }
+                """)));
+
+        MvcResult started = mvc.perform(post("/architecture/orders")
+                        .header("Authorization", token)
+                        .header(IdempotencyFilter.KEY_HEADER, "reactive-order-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"amount\": 3 }"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String first = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.order.id", is("o-3")))
+                .andReturn().getResponse().getContentAsString();
+
+        // the stored response is replayed synchronously
+        mvc.perform(post("/architecture/orders")
+                        .header("Authorization", token)
+                        .header(IdempotencyFilter.KEY_HEADER, "reactive-order-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"amount\": 3 }"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().string(first));
+
+        orderService.verify(1, postRequestedFor(urlEqualTo("/orders")));
+    }
+}
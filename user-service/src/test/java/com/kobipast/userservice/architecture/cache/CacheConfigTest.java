@@ -0,0 +1,86 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "caching.caches.scanTest.max-weight=64KB"
+})
+class CacheConfigTest {
+
+    @Autowired CacheManager cacheManager;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void configuredCaches_areBoundedAndExpire_andUnlistedOnesGetTheDefaults() {
+        // off-heap tiered, so expiry is per entry: promoted entries keep what they had left
+        Cache<Object, Object> demo = nativeCache("demoProfile");
+        demo.put("ttl-probe", "x");
+        Duration expiresAfter = demo.policy().expireVariably().orElseThrow().getExpiresAfter("ttl-probe").orElseThrow();
+        assertTrue(expiresAfter.compareTo(Duration.ofMinutes(5)) <= 0 && expiresAfter.compareTo(Duration.ofMinutes(4)) > 0);
+        demo.invalidate("ttl-probe");
+        assertEquals(4L * 1024 * 1024, demo.policy().eviction().orElseThrow().getMaximum());
+
+        // inherits the ttl it doesn't set
+        Cache<Object, Object> scan = nativeCache("scanTest");
+        assertEquals(Duration.ofMinutes(10), scan.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+
+        Cache<Object, Object> adHoc = nativeCache("notConfigured");
+        assertEquals(16L * 1024 * 1024, adHoc.policy().eviction().orElseThrow().getMaximum());
+    }
+
+    @Test
+    void scanOfOneOffKeys_doesNotPushOutTheHotSet() {
+        Cache<Object, Object> cache = nativeCache("scanTest");
+        String value = "x".repeat(200);
+
+        // the hot set keeps being read (and reloaded on a miss, as @Cacheable would) while a stream of
+        // unique ids passes through. ~130 entries fit, and 159 others are touched between two reads of
+        // the same hot key, so plain LRU would miss on every hot read
+        int hotReads = 0;
+        int hotHits = 0;
+        for (int i = 0; i < 10_000; i++) {
+            cache.get("scan-" + i, k -> value);
+            String hot = "hot-" + (i % 80);
+            if (cache.getIfPresent(hot) != null) {
+                if (i >= 5_000) {
+                    hotHits++;
+                }
+            } else {
+                cache.put(hot, value);
+            }
+            if (i >= 5_000) {
+                hotReads++;
+            }
+        }
+        cache.cleanUp();
+
+        assertTrue(hotHits >= hotReads * 0.9, "hot hits " + hotHits + "/" + hotReads);
+        assertTrue(cache.policy().eviction().orElseThrow().weightedSize().orElseThrow() <= 64 * 1024);
+    }
+
+    @Test
+    void cacheStats_arePublishedAsMetrics() {
+        org.springframework.cache.Cache demo = cacheManager.getCache("demoProfile");
+        demo.put("metrics-user", "profile");
+        demo.get("metrics-user");
+        demo.get("metrics-missing");
+
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", "demoProfile").tag("result", "hit").functionCounter().count() >= 1);
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", "demoProfile").tag("result", "miss").functionCounter().count() >= 1);
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "demoProfile").functionCounter());
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+}
@@ -0,0 +1,95 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationBusTest {
+
+    // two "instances" sharing one in-process channel
+    private final List<InvalidationMessage> published = new ArrayList<>();
+    private final LoopbackInvalidationTransport transport = new LoopbackInvalidationTransport() {
+        @Override
+        public void publish(byte[] message) {
+            published.add(InvalidationMessage.decode(message));
+            super.publish(message);
+        }
+    };
+    private final CacheInvalidationBus busA = new CacheInvalidationBus(transport, new SimpleMeterRegistry(), 1000);
+    private final CacheInvalidationBus busB = new CacheInvalidationBus(transport, new SimpleMeterRegistry(), 1000);
+    private final NearCache nodeA = cache(busA);
+    private final NearCache nodeB = cache(busB);
+
+    @Test
+    void evictionsAreCoalesced_andAppliedOnPeersWhenFlushed() {
+        for (String key : List.of("u1", "u2", "u3")) {
+            nodeA.put(key, "profile");
+            nodeB.put(key, "profile");
+        }
+
+        nodeA.evict("u1");
+        nodeA.evict("u1");
+        nodeA.evictIfPresent("u2");
+        assertNotNull(nodeB.get("u1"), "nothing is sent before the flush");
+
+        busA.flush();
+
+        assertEquals(1, published.size());
+        assertEquals(Map.of("profiles", Set.of("u1", "u2")), published.get(0).evictedKeys());
+        assertNull(nodeB.get("u1"));
+        assertNull(nodeB.get("u2"));
+        assertNotNull(nodeB.get("u3"));
+        // applying a peer's message is not re-broadcast
+        busB.flush();
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void clear_supersedesPendingKeys() {
+        nodeB.put("u1", "profile");
+        nodeB.put("u2", "profile");
+
+        nodeA.evict("u1");
+        nodeA.clear();
+        busA.flush();
+
+        InvalidationMessage message = published.get(0);
+        assertTrue(message.evictedKeys().isEmpty());
+        assertEquals(Set.of("profiles"), message.clearedCaches());
+        assertNull(nodeB.get("u2"));
+    }
+
+    @Test
+    void fullBatch_isFlushedWithoutWaitingForTheInterval() {
+        CacheInvalidationBus small = new CacheInvalidationBus(transport, new SimpleMeterRegistry(), 2);
+        NearCache node = new NearCache("other", Caffeine.newBuilder().build(), true, small, probe(), null);
+
+        node.evict("a");
+        assertTrue(published.isEmpty());
+        node.evict("b");
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void message_roundTripsThroughTheWireFormat() {
+        InvalidationMessage message = new InvalidationMessage(java.util.UUID.randomUUID(),
+                Map.of("profiles", Set.of("u1", "ü2")), Set.of("sessions"));
+
+        assertEquals(message, InvalidationMessage.decode(message.encode()));
+    }
+
+    private static NearCache cache(CacheInvalidationBus bus) {
+        return new NearCache("profiles", Caffeine.newBuilder().build(), true, bus, probe(), null);
+    }
+
+    private static CacheInstrumentation.Probe probe() {
+        return new CacheInstrumentation(new SimpleMeterRegistry(), 1024, 10).probe("profiles");
+    }
+}
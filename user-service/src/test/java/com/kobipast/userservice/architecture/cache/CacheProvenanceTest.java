@@ -0,0 +1,57 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import com.kobipast.userservice.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "caching.caches.demoProfile.refresh-after=PT1S")
+@AutoConfigureMockMvc
+class CacheProvenanceTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwtService;
+
+    @Test
+    void profile_reportsMissThenHitThenStale_andShowsUpInCacheStats() throws Exception {
+        String token = "Bearer " + jwtService.generateToken(new User("u", "provenance@example.com", "x", Role.USER));
+
+        mvc.perform(get("/architecture/cache/profile").param("userId", "prov-1").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CacheProvenance.HEADER, "MISS"));
+        mvc.perform(get("/architecture/cache/profile").param("userId", "prov-1").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CacheProvenance.HEADER, "HIT"));
+
+        Thread.sleep(1_100);
+        mvc.perform(get("/architecture/cache/profile").param("userId", "prov-1").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CacheProvenance.HEADER, "STALE"));
+
+        String admin = "Bearer " + jwtService.generateToken(new User("a", "provenance-admin@example.com", "x", Role.ADMIN));
+        mvc.perform(get("/actuator/cachestats/demoProfile"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/cachestats/demoProfile").header("Authorization", token))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/cachestats/demoProfile").header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits", greaterThanOrEqualTo(2)))
+                .andExpect(jsonPath("$.staleReads", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.size", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.weight", greaterThan(0)))
+                .andExpect(jsonPath("$.loadLatencyMs.count", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.loadLatencyMs.p99", greaterThan(500.0)))
+                .andExpect(jsonPath("$.hotKeys[0].keyFingerprint", is(CacheStatsEndpoint.fingerprint("prov-1"))))
+                .andExpect(jsonPath("$.hotKeys[0].key").doesNotExist());
+        mvc.perform(get("/actuator/cachestats/nope").header("Authorization", admin))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,49 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.kobipast.userservice.UserServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheWarmupRestartTest {
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @Test
+    void snapshotTakenBeforeARestart_isReplayedBeforeTheNextInstanceIsReady() {
+        try (ConfigurableApplicationContext before = start("before")) {
+            org.springframework.cache.Cache cache = before.getBean(CacheManager.class).getCache("demoProfile");
+            for (String userId : List.of("r1", "r2", "r3")) {
+                cache.put(userId, "profile");
+            }
+            before.getBean(CacheWarmup.class).snapshot();
+        }
+
+        // a fresh in-memory database: only the snapshot directory carries over
+        try (ConfigurableApplicationContext after = start("after")) {
+            CacheWarmup warmup = after.getBean(CacheWarmup.class);
+            assertEquals("UP", warmup.health().getStatus().getCode());
+            assertEquals(3, warmup.health().getDetails().get("loaded"));
+
+            org.springframework.cache.Cache cache = after.getBean(CacheManager.class).getCache("demoProfile");
+            for (String userId : List.of("r1", "r2", "r3")) {
+                assertNotNull(cache.get(userId), userId + " not warmed");
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(String instance) {
+        return new SpringApplicationBuilder(UserServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:warmup-restart-" + instance,
+                "--caching.warmup.store.directory=" + snapshotDirectory);
+    }
+}
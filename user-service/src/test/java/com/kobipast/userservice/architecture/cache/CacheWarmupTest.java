@@ -0,0 +1,93 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "caching.warmup.store.directory=target/cache-warmup-test")
+@AutoConfigureMockMvc
+class CacheWarmupTest {
+
+    @Autowired CacheWarmup warmup;
+    @Autowired CacheManager cacheManager;
+    @Autowired HotKeySnapshotStore snapshots;
+    @Autowired MockMvc mvc;
+
+    @MockitoBean
+    CacheDemoService cacheDemoService;
+
+    @BeforeEach
+    void cleanup() {
+        snapshots.replace("demoProfile", List.of());
+        cacheManager.getCache("demoProfile").clear();
+        clearInvocations(cacheDemoService);
+    }
+
+    @Test
+    void snapshotOfTheLiveCache_isReplayedThroughTheWarmer() throws Exception {
+        org.springframework.cache.Cache cache = cacheManager.getCache("demoProfile");
+        for (String userId : List.of("w1", "w2", "w3")) {
+            cache.put(userId, "profile");
+        }
+
+        warmup.snapshot();
+        List<String> keys = snapshots.load("demoProfile", 10);
+        assertEquals(3, keys.size());
+        assertTrue(keys.containsAll(List.of("w1", "w2", "w3")));
+
+        warmup.warm();
+
+        verify(cacheDemoService).getProfile("w1");
+        verify(cacheDemoService).getProfile("w2");
+        verify(cacheDemoService).getProfile("w3");
+        assertEquals("UP", warmup.health().getStatus().getCode());
+        assertEquals(3, warmup.health().getDetails().get("loaded"));
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("UP")));
+    }
+
+    @Test
+    void emptyCache_doesNotOverwriteTheLastSnapshot() {
+        snapshots.replace("demoProfile", List.of("kept"));
+
+        warmup.snapshot();
+
+        assertEquals(List.of("kept"), snapshots.load("demoProfile", 10));
+    }
+
+    @Test
+    void login_prefetchesTheUsersProfileInTheBackground() throws Exception {
+        mvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "name": "Pia", "email": "prefetch@example.com", "password": "secret123" }
+                                """))
+                .andExpect(status().isCreated());
+
+        mvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "email": "prefetch@example.com", "password": "secret123" }
+                                """))
+                .andExpect(status().isOk());
+
+        verify(cacheDemoService, timeout(2_000)).getProfile(anyString());
+    }
+}
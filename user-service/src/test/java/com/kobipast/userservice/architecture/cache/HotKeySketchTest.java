@@ -0,0 +1,49 @@
+package com.kobipast.userservice.architecture.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeySketchTest {
+
+    @Test
+    void topKeys_surfaceFromALongTailOfOneOffKeys() {
+        HotKeySketch sketch = new HotKeySketch(1024, 3);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.record("tail-" + i);
+            if (i % 5 == 0) {
+                sketch.record("hot-a");
+            }
+            if (i % 10 == 0) {
+                sketch.record("hot-b");
+            }
+            if (i % 20 == 0) {
+                sketch.record("hot-c");
+            }
+        }
+
+        List<String> top = sketch.top().stream().map(Map.Entry::getKey).toList();
+        assertEquals(List.of("hot-a", "hot-b", "hot-c"), top);
+    }
+
+    @Test
+    void memberRaisedInPlace_isNotEvictedInsteadOfTheRealColdest() {
+        HotKeySketch sketch = new HotKeySketch(1024, 2);
+        repeat(sketch, "a", 10);
+        repeat(sketch, "b", 3);
+        // b overtakes a without going through an admission
+        repeat(sketch, "b", 10);
+        repeat(sketch, "c", 11);
+
+        assertEquals(List.of(Map.entry("b", 13L), Map.entry("c", 11L)), sketch.top());
+    }
+
+    private static void repeat(HotKeySketch sketch, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.record(key);
+        }
+    }
+}
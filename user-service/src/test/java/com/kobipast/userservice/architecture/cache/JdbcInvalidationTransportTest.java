@@ -0,0 +1,50 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "caching.invalidation.transport=jdbc",
+        "caching.invalidation.flush-interval=PT1H",
+        "caching.invalidation.jdbc.poll-interval=PT1H"
+})
+class JdbcInvalidationTransportTest {
+
+    @Autowired CacheManager cacheManager;
+    @Autowired CacheInvalidationBus bus;
+    @Autowired CacheInvalidationEntryRepository repo;
+
+    @Test
+    void evictionOnThisInstance_reachesAPeerPollingTheSameTable() {
+        // a second instance against the same database
+        JdbcInvalidationTransport peerTransport = new JdbcInvalidationTransport(repo, 500, Duration.ofMinutes(5));
+        CacheInvalidationBus peerBus = new CacheInvalidationBus(peerTransport, new SimpleMeterRegistry(), 1000);
+        NearCache peer = new NearCache("demoProfile", Caffeine.newBuilder().build(), true, peerBus,
+                new CacheInstrumentation(new SimpleMeterRegistry(), 1024, 10).probe("demoProfile"), null);
+        peerTransport.poll();
+
+        org.springframework.cache.Cache local = cacheManager.getCache("demoProfile");
+        local.put("jdbc-user", "profile");
+        peer.put("jdbc-user", "profile");
+        peer.put("other-user", "profile");
+
+        local.evict("jdbc-user");
+        bus.flush();
+        peerTransport.poll();
+
+        assertNull(peer.get("jdbc-user"));
+        assertNotNull(peer.get("other-user"));
+
+        // pruning drops rows past the retention
+        new JdbcInvalidationTransport(repo, 500, Duration.ZERO).prune();
+        assertEquals(0, repo.count());
+    }
+}
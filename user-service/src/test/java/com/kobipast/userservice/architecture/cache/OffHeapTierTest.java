@@ -0,0 +1,151 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTierTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void heapSizeEvictions_areServedFromOffHeap_untilTheirOriginalExpiry() {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+        NearCache cache = nearCache(tier, Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(10), Duration.ofMinutes(5));
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("u" + i, profile("u" + i));
+        }
+        cache.getNativeCache().cleanUp();
+
+        assertTrue(cache.getNativeCache().estimatedSize() <= 10);
+        assertTrue(tier.size() >= 90, "demoted: " + tier.size());
+        for (int i = 0; i < 100; i++) {
+            String userId = "u" + i;
+            assertEquals(profile(userId), cache.get(userId, () -> fail("loader must not run for " + userId)));
+        }
+        assertTrue(registry.get("cache.offheap.hits").tag("cache", "profiles").counter().count() >= 90);
+    }
+
+    @Test
+    void offHeapHit_isPromotedBackOnHeap() {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+        NearCache cache = nearCache(tier, Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(100), Duration.ofMinutes(5));
+        tier.demote("u1", profile("u1"), Duration.ofMinutes(1));
+
+        assertEquals(profile("u1"), cache.get("u1", () -> fail("loader must not run")));
+        assertEquals(profile("u1"), cache.getNativeCache().getIfPresent("u1"));
+        assertNull(tier.get("u1"), "promotion moves the entry, it doesn't copy it");
+
+        // later reads are heap hits
+        assertEquals(profile("u1"), cache.get("u1").get());
+        assertEquals(1, registry.get("cache.offheap.hits").tag("cache", "profiles").counter().count());
+    }
+
+    @Test
+    void entryMovingBetweenTiers_stillExpiresAtItsOriginalDeadline() throws Exception {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+        NearCache cache = nearCache(tier, Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(100), Duration.ofMillis(300));
+        var eviction = cache.getNativeCache().policy().eviction().orElseThrow();
+        AtomicLong firstLoadAfterMillis = new AtomicLong(-1);
+
+        long written = System.nanoTime();
+        cache.put("u1", profile("u1"));
+        int cycles = 0;
+        while (firstLoadAfterMillis.get() < 0 && System.nanoTime() - written < TimeUnit.MILLISECONDS.toNanos(600)) {
+            Thread.sleep(25);
+            cycles++;
+            // demote everything, then let the read promote u1 back
+            eviction.setMaximum(0);
+            eviction.setMaximum(100);
+            cache.get("u1", () -> {
+                firstLoadAfterMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - written));
+                return profile("u1");
+            });
+            if (firstLoadAfterMillis.get() < 0) {
+                // counted from the put, not from the last promotion
+                Duration age = cache.ageOf("u1").orElseThrow();
+                assertTrue(age.compareTo(Duration.ofMillis(25L * cycles - 5)) >= 0, "age " + age + " after " + cycles + " cycles");
+            }
+        }
+
+        assertTrue(firstLoadAfterMillis.get() >= 300, "reloaded after " + firstLoadAfterMillis.get() + " ms");
+        assertTrue(registry.get("cache.offheap.demotions").tag("cache", "profiles").counter().count() >= 5);
+    }
+
+    @Test
+    void evictedKey_isNotPromotedAfterwards() {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+        NearCache cache = nearCache(tier, Caffeine.newBuilder(), Duration.ofMinutes(5));
+        tier.demote("u1", profile("u1"), Duration.ofMinutes(1));
+
+        cache.evict("u1");
+
+        assertNull(cache.get("u1"));
+        assertNull(cache.getNativeCache().getIfPresent("u1"));
+    }
+
+    @Test
+    void expiredAndEvictedEntries_areNotServed() {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+
+        tier.demote("gone", profile("gone"), Duration.ofNanos(1));
+        tier.demote("kept", profile("kept"), Duration.ofMinutes(1));
+        assertNull(tier.get("gone"));
+        assertEquals(profile("kept"), tier.get("kept"));
+
+        NearCache cache = nearCache(tier, Caffeine.newBuilder(), Duration.ofMinutes(5));
+        cache.evict("kept");
+        assertNull(tier.get("kept"));
+    }
+
+    @Test
+    void fullTier_recyclesTheOldestSlab() {
+        // 4 slabs of 4 KB, so the early entries are dropped whole-slab as newer ones arrive
+        OffHeapTier tier = new OffHeapTier("profiles", 16 * 1024, 4 * 1024, registry);
+        for (int i = 0; i < 200; i++) {
+            tier.demote("u" + i, profile("u" + i), Duration.ofMinutes(1));
+        }
+
+        assertNull(tier.get("u0"));
+        assertEquals(profile("u199"), tier.get("u199"));
+        assertEquals(16 * 1024, tier.allocatedBytes());
+        assertTrue(tier.size() < 200);
+    }
+
+    @Test
+    void nonSerializableValues_areNotDemoted() {
+        OffHeapTier tier = new OffHeapTier("profiles", 1 << 20, 64 * 1024, registry);
+        tier.demote("u1", new Object(), Duration.ofMinutes(1));
+        assertEquals(0, tier.size());
+    }
+
+    private NearCache nearCache(OffHeapTier tier, Caffeine<Object, Object> builder, Duration ttl) {
+        Cache<Object, Object> heap = tier.buildHeapTier(builder, ttl);
+        return new NearCache("profiles", heap, true,
+                new CacheInvalidationBus(new LoopbackInvalidationTransport(), registry, 1000),
+                new CacheInstrumentation(registry, 1024, 10).probe("profiles"), tier);
+    }
+
+    private static Map<String, Object> profile(String userId) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("userId", userId);
+        data.put("generatedAt", "2026-01-01T00:00:00Z");
+        return data;
+    }
+}
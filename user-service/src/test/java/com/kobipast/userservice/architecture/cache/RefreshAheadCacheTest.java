@@ -0,0 +1,116 @@
+package com.kobipast.userservice.architecture.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    private final RefreshAheadCache cache = new RefreshAheadCache("profiles",
+            Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(5)).ticker(nanos::get).build(),
+            true, new CacheInvalidationBus(new LoopbackInvalidationTransport(), new SimpleMeterRegistry(), 1000),
+            new CacheInstrumentation(new SimpleMeterRegistry(), 1024, 10).probe("profiles"), null,
+            Duration.ofMinutes(4), refreshExecutor);
+
+    @AfterEach
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentMisses_runTheLoaderOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return cache.get("u1", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(200);
+                        return "v1";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> f : results) {
+                assertEquals("v1", f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void pastSoftTtl_servesStale_andReloadsOnceInTheBackground() throws Exception {
+        cache.get("u1", () -> "v1");
+        nanos.addAndGet(Duration.ofMinutes(4).plusSeconds(1).toNanos());
+
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            // returns immediately even though the reload is blocked
+            assertEquals("v1", cache.get("u1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "v2";
+            }));
+        }
+        release.countDown();
+
+        assertEquals("v2", awaitValue("u1", "v2"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictDuringReload_isNotUndoneByTheReload() throws Exception {
+        cache.get("u1", () -> "v1");
+        nanos.addAndGet(Duration.ofMinutes(4).plusSeconds(1).toNanos());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        cache.get("u1", () -> {
+            started.countDown();
+            release.await();
+            return "v2";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        cache.evict("u1");
+        release.countDown();
+
+        refreshExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertNull(cache.get("u1"));
+    }
+
+    private Object awaitValue(String key, Object expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Object value = null;
+        while (System.nanoTime() < deadline) {
+            value = cache.get(key) == null ? null : cache.get(key).get();
+            if (expected.equals(value)) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        return value;
+    }
+}
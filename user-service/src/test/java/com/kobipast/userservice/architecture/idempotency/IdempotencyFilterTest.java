@@ -0,0 +1,114 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.kobipast.userservice.architecture.integration.OrderClient;
+import com.kobipast.userservice.architecture.integration.dto.CreateOrderRequest;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import com.kobipast.userservice.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwtService;
+
+    @MockitoBean
+    OrderClient orderClient;
+
+    private final String AUTH = "Authorization";
+
+    @Test
+    void createOrder_sameKeyAndBody_replaysStoredBytes_withoutCallingOrderService() throws Exception {
+        AtomicInteger seq = new AtomicInteger();
+        when(orderClient.createOrder(any(CreateOrderRequest.class))).thenAnswer(inv ->
+                new OrderDto("o-" + seq.incrementAndGet(), "filter-user@example.com", "CREATED", 40, "2026-01-01T00:00:00Z", 0));
+        String token = "Bearer " + jwtService.generateToken(new User("u", "filter-user@example.com", "x", Role.USER));
+        String body = """
+                { "amount": 40 }
+                """;
+
+        String first = mvc.perform(post("/architecture/orders")
+                        .header(AUTH, token)
+                        .header(IdempotencyFilter.KEY_HEADER, "order-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andExpect(jsonPath("$.data.order.id", is("o-1")))
+                .andReturn().getResponse().getContentAsString();
+
+        String replayed = mvc.perform(post("/architecture/orders")
+                        .header(AUTH, token)
+                        .header(IdempotencyFilter.KEY_HEADER, "order-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, replayed, "replay must be byte-for-byte the original response");
+        verify(orderClient, times(1)).createOrder(any());
+    }
+
+    @Test
+    void createOrder_sameKeyDifferentBody_returns409() throws Exception {
+        when(orderClient.createOrder(any(CreateOrderRequest.class)))
+                .thenReturn(new OrderDto("o-9", "conflict-user@example.com", "CREATED", 1, "2026-01-01T00:00:00Z", 0));
+        String token = "Bearer " + jwtService.generateToken(new User("u", "conflict-user@example.com", "x", Role.USER));
+
+        mvc.perform(post("/architecture/orders")
+                        .header(AUTH, token)
+                        .header(IdempotencyFilter.KEY_HEADER, "order-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"amount\": 1 }"))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/architecture/orders")
+                        .header(AUTH, token)
+                        .header(IdempotencyFilter.KEY_HEADER, "order-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"amount\": 2 }"))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentTypeCompatibleWith("application/problem+json"))
+                .andExpect(jsonPath("$.title", is("Idempotency conflict")));
+
+        verify(orderClient, times(1)).createOrder(any());
+    }
+
+    @Test
+    void createOrder_withoutKey_executesEveryTime() throws Exception {
+        when(orderClient.createOrder(any(CreateOrderRequest.class)))
+                .thenReturn(new OrderDto("o-7", "nokey-user@example.com", "CREATED", 5, "2026-01-01T00:00:00Z", 0));
+        String token = "Bearer " + jwtService.generateToken(new User("u", "nokey-user@example.com", "x", Role.USER));
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/architecture/orders")
+                            .header(AUTH, token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{ \"amount\": 5 }"))
+                    .andExpect(status().isOk());
+        }
+
+        verify(orderClient, times(2)).createOrder(any());
+    }
+}
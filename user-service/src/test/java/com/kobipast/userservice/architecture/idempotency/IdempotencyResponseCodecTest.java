@@ -0,0 +1,77 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyResponseCodecTest {
+
+    private final IdempotencyResponseCodec codec = new IdempotencyResponseCodec(256);
+
+    @Test
+    void largeBody_isDeflated_andRoundTrips() {
+        byte[] body = "{\"message\":\"Processed: PAY amount=50\",\"replay\":false}".repeat(40).getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = codec.encode(201, "application/json", Map.of("Location", "/architecture/idempotency/p-1"), body);
+        IdempotencyResponseCodec.Decoded decoded = codec.decode(stored);
+
+        assertEquals(IdempotencyResponseCodec.CODEC_DEFLATE, stored[1]);
+        assertTrue(stored.length < body.length / 4, "repetitive JSON should compress well");
+        assertEquals(201, decoded.statusCode());
+        assertEquals("application/json", decoded.contentType());
+        assertEquals(Map.of("Location", "/architecture/idempotency/p-1"), decoded.headers());
+        assertArrayEquals(body, decoded.body());
+    }
+
+    @Test
+    void smallBody_isStoredAsIs() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = codec.encode(409, null, Map.of(), body);
+        IdempotencyResponseCodec.Decoded decoded = codec.decode(stored);
+
+        assertEquals(IdempotencyResponseCodec.CODEC_IDENTITY, stored[1]);
+        assertEquals(409, decoded.statusCode());
+        assertNull(decoded.contentType());
+        assertTrue(decoded.headers().isEmpty());
+        assertArrayEquals(body, decoded.body());
+    }
+
+    @Test
+    void headers_roundTripInOrder() {
+        Map<String, String> headers = new java.util.LinkedHashMap<>();
+        headers.put("ETag", "\"v1\"");
+        headers.put("Cache-Control", "no-cache, no-store");
+        headers.put("Location", "/p/\u00e9");
+
+        IdempotencyResponseCodec.Decoded decoded = codec.decode(codec.encode(201, "application/json", headers, new byte[0]));
+
+        assertEquals(java.util.List.copyOf(headers.entrySet()), java.util.List.copyOf(decoded.headers().entrySet()));
+    }
+
+    @Test
+    void versionOneRows_withoutAHeaderSection_stillDecode() {
+        byte[] type = "application/json".getBytes(StandardCharsets.UTF_8);
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        byte[] stored = ByteBuffer.allocate(1 + 1 + 2 + 1 + type.length + 4 + body.length)
+                .put(IdempotencyResponseCodec.VERSION_WITHOUT_HEADERS)
+                .put(IdempotencyResponseCodec.CODEC_IDENTITY)
+                .putShort((short) 201)
+                .put((byte) type.length)
+                .put(type)
+                .putInt(body.length)
+                .put(body)
+                .array();
+
+        IdempotencyResponseCodec.Decoded decoded = codec.decode(stored);
+
+        assertEquals(201, decoded.statusCode());
+        assertEquals("application/json", decoded.contentType());
+        assertTrue(decoded.headers().isEmpty());
+        assertArrayEquals(body, decoded.body());
+    }
+}
@@ -0,0 +1,137 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.CapturedResponse;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawExchange;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class IdempotencyServiceSingleFlightTest {
+
+    @Autowired IdempotencyService idempotencyService;
+    @Autowired IdempotencyRecordRepository repo;
+
+    @BeforeEach
+    void cleanup() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void concurrentDuplicates_runActionOnce_andReplayTheLeadersResult() throws Exception {
+        int callers = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<RawOutcome>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return idempotencyService.executeRaw("burst-1", "test:burst", exchange("PAY 10", () -> {
+                        executions.incrementAndGet();
+                        sleep(300); // keep the leader in flight while the duplicates arrive
+                    })).get(10, TimeUnit.SECONDS);
+                }));
+            }
+            start.countDown();
+
+            int replays = 0;
+            for (Future<RawOutcome> f : results) {
+                RawOutcome r = f.get(10, TimeUnit.SECONDS);
+                assertEquals(201, r.response().statusCode());
+                assertEquals("done", new String(r.response().body(), StandardCharsets.UTF_8));
+                assertEquals("/done/1", r.response().headers().get("Location"));
+                if (r.replay()) {
+                    replays++;
+                }
+            }
+
+            assertEquals(1, executions.get());
+            assertEquals(callers - 1, replays);
+            assertEquals(1, repo.count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void inFlightDuplicateWithDifferentBody_isConflict() throws Exception {
+        CountDownLatch actionEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> leader = pool.submit(() -> idempotencyService.executeRaw("burst-2", "test:burst", exchange("PAY 10", () -> {
+                actionEntered.countDown();
+                await(release);
+            })).get(5, TimeUnit.SECONDS));
+            assertTrue(actionEntered.await(5, TimeUnit.SECONDS));
+
+            assertThrows(IdempotencyConflictException.class, () -> idempotencyService.executeRaw("burst-2", "test:burst",
+                    exchange("PAY 11", () -> fail("business logic must not run for a conflicting duplicate"))));
+
+            release.countDown();
+            leader.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // what IdempotencyFilter would hand over for a request with this body and a handler running action
+    private static RawExchange exchange(String requestBody, Runnable action) {
+        return new RawExchange() {
+            @Override
+            public byte[] requestDigest() {
+                try {
+                    return MessageDigest.getInstance("SHA-256").digest(requestBody.getBytes(StandardCharsets.UTF_8));
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public CompletionStage<CapturedResponse> proceed() {
+                action.run();
+                return CompletableFuture.completedFuture(new CapturedResponse(
+                        201, "text/plain", Map.of("Location", "/done/1"), "done".getBytes(StandardCharsets.UTF_8)));
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.CapturedResponse;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawExchange;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceStoreFailureTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger puts = new AtomicInteger();
+
+    @Test
+    void storeFailure_afterTheHandlerRan_stillReturnsItsResponse() throws Exception {
+        IdempotencyService service = service(new IdempotencyStore() {
+            @Override
+            public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+                puts.incrementAndGet();
+                throw new IllegalStateException("value too long for column SCOPE");
+            }
+        }, DataSize.ofKilobytes(512));
+
+        RawOutcome outcome = service.executeRaw("k-1", "test:store", exchange("created")).join();
+
+        assertFalse(outcome.replay());
+        assertEquals(201, outcome.response().statusCode());
+        assertEquals("created", new String(outcome.response().body(), StandardCharsets.UTF_8));
+        assertEquals(1, puts.get());
+        assertEquals(1, notStored("error"));
+    }
+
+    @Test
+    void responseAboveTheLimit_isSentButNotStored() throws Exception {
+        IdempotencyService service = service(new IdempotencyStore() {
+            @Override
+            public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+                puts.incrementAndGet();
+            }
+        }, DataSize.ofBytes(4));
+
+        RawOutcome outcome = service.executeRaw("k-2", "test:store", exchange("more than four bytes")).join();
+
+        assertEquals("more than four bytes", new String(outcome.response().body(), StandardCharsets.UTF_8));
+        assertEquals(0, puts.get());
+        assertEquals(1, notStored("too_large"));
+    }
+
+    private IdempotencyService service(IdempotencyStore store, DataSize maxResponseSize) {
+        return new IdempotencyService(store, new NoTransactions(), registry, Duration.ofSeconds(5), maxResponseSize);
+    }
+
+    private double notStored(String reason) {
+        return registry.get("idempotency.not-stored").tag("reason", reason).counter().count();
+    }
+
+    private static RawExchange exchange(String responseBody) {
+        return new RawExchange() {
+            @Override
+            public byte[] requestDigest() {
+                return new byte[32];
+            }
+
+            @Override
+            public CompletionStage<CapturedResponse> proceed() {
+                return CompletableFuture.completedFuture(new CapturedResponse(
+                        201, "text/plain", Map.of(), responseBody.getBytes(StandardCharsets.UTF_8)));
+            }
+        };
+    }
+
+    private static final class NoTransactions implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.CapturedResponse;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyService.RawExchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of {@link IdempotencyService#executeRaw} against an in-memory store for a growing number of
+ * threads, each hammering distinct keys on one box. If the in-flight map were the bottleneck, ops/s would
+ * stop growing well before the thread count reaches the core count.
+ * Not a test (surefire skips it); run its main method from the IDE against the test classpath.
+ *
+ * <p>Args: {@code [max threads] [seconds per run]}, defaulting to 2 x cores and 3 s.</p>
+ */
+public class IdempotencyThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        Duration runTime = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 3);
+
+        // one short warm-up so the first row isn't paying for JIT
+        run(maxThreads, Duration.ofSeconds(1));
+
+        System.out.printf("cores=%d, %ss per run%n", Runtime.getRuntime().availableProcessors(), runTime.toSeconds());
+        System.out.printf("%8s %14s %9s%n", "threads", "ops/s", "vs 1");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double opsPerSecond = run(threads, runTime);
+            if (threads == 1) {
+                single = opsPerSecond;
+            }
+            System.out.printf("%8d %14.0f %8.2fx%n", threads, opsPerSecond, opsPerSecond / single);
+        }
+    }
+
+    private static double run(int threads, Duration runTime) throws InterruptedException {
+        IdempotencyService service = new IdempotencyService(
+                new MapStore(), new NoopTransactionManager(),
+                new SimpleMeterRegistry(), Duration.ofSeconds(30), DataSize.ofKilobytes(512));
+        byte[] digest = new byte[32];
+        CapturedResponse response = new CapturedResponse(201, "application/json", Map.of(), "{}".getBytes());
+        RawExchange exchange = new RawExchange() {
+            @Override
+            public byte[] requestDigest() {
+                return digest;
+            }
+
+            @Override
+            public CompletionStage<CapturedResponse> proceed() {
+                return CompletableFuture.completedFuture(response);
+            }
+        };
+
+        LongAdder ops = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String prefix = "t" + t + "-";
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long n = 0;
+                    while (running.get()) {
+                        service.executeRaw(prefix + n++, "bench", exchange);
+                        ops.increment();
+                    }
+                } catch (Exception e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(runTime.toMillis());
+        running.set(false);
+        done.await();
+        return ops.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static final class MapStore implements IdempotencyStore {
+
+        private final Map<String, IdempotencyEntry> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+            return Optional.ofNullable(entries.get(scope + "\n" + idempotencyKey));
+        }
+
+        @Override
+        public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+            entries.put(scope + "\n" + idempotencyKey, entry);
+        }
+    }
+
+    private static final class NoopTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
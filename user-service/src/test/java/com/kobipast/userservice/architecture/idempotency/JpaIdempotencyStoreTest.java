@@ -0,0 +1,116 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class JpaIdempotencyStoreTest {
+
+    @Autowired IdempotencyRecordRepository repo;
+
+    @BeforeEach
+    void cleanup() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void rowWithoutShard_isFound_andShardedWhenOverwritten() {
+        // written before the shard column existed
+        IdempotencyRecord legacy = new IdempotencyRecord();
+        legacy.setIdempotencyKey("k-1");
+        legacy.setScope("POST:Test.pay|someone");
+        legacy.setRequestHash("ab".repeat(32));
+        legacy.setStatusCode(201);
+        legacy.setResponseBodyJson("{\"ok\":true}");
+        legacy.setCreatedAt(Instant.now());
+        legacy.setExpiresAt(Instant.now().plusSeconds(600));
+        legacy = repo.save(legacy);
+
+        JpaIdempotencyStore store = new JpaIdempotencyStore(repo, 256, Duration.ofHours(1), new SimpleMeterRegistry());
+
+        IdempotencyEntry found = store.find("POST:Test.pay|someone", "k-1").orElseThrow();
+        assertEquals(201, found.statusCode());
+        assertEquals("{\"ok\":true}", new String(found.payload(), StandardCharsets.UTF_8));
+
+        store.put("POST:Test.pay|someone", "k-1", new IdempotencyEntry(
+                new byte[32], 200, "application/json", Map.of(), "{}".getBytes(StandardCharsets.UTF_8), Instant.now().plusSeconds(600)));
+
+        IdempotencyRecord migrated = repo.findAll().get(0);
+        assertEquals(1, repo.count());
+        assertEquals(legacy.getId(), migrated.getId());
+        assertEquals(IdempotencyKeyspace.shardOf("POST:Test.pay|someone", "k-1"), migrated.getShard());
+        assertEquals(200, store.find("POST:Test.pay|someone", "k-1").orElseThrow().statusCode());
+    }
+
+    @Test
+    void withoutUnshardedRows_missesDoNotFallBack() {
+        JpaIdempotencyStore store = new JpaIdempotencyStore(repo, 256, Duration.ofHours(1), new SimpleMeterRegistry());
+        assertTrue(store.find("s", "missing").isEmpty());
+
+        // appears after the check: not looked for until the next one
+        IdempotencyRecord late = new IdempotencyRecord();
+        late.setIdempotencyKey("late");
+        late.setScope("s");
+        late.setRequestHash("ab".repeat(32));
+        late.setStatusCode(201);
+        late.setResponseBodyJson("{}");
+        late.setCreatedAt(Instant.now());
+        late.setExpiresAt(Instant.now().plusSeconds(600));
+        repo.save(late);
+
+        assertTrue(store.find("s", "late").isEmpty());
+    }
+
+    @Test
+    void unshardedRows_areRecheckedAfterTheInterval() throws Exception {
+        JpaIdempotencyStore store = new JpaIdempotencyStore(repo, 256, Duration.ofMillis(200), new SimpleMeterRegistry());
+        assertTrue(store.find("s", "missing").isEmpty());
+
+        IdempotencyRecord late = new IdempotencyRecord();
+        late.setIdempotencyKey("late");
+        late.setScope("s");
+        late.setRequestHash("ab".repeat(32));
+        late.setStatusCode(201);
+        late.setResponseBodyJson("{}");
+        late.setCreatedAt(Instant.now());
+        late.setExpiresAt(Instant.now().plusSeconds(600));
+        repo.save(late);
+
+        Thread.sleep(250);
+        assertEquals(201, store.find("s", "late").orElseThrow().statusCode());
+    }
+
+    @Test
+    void onceUnshardedRowsAreGone_missesStopFallingBack() throws Exception {
+        IdempotencyRecordRepository rows = mock(IdempotencyRecordRepository.class);
+        when(rows.findByShardAndIdempotencyKeyAndScope(anyInt(), anyString(), anyString())).thenReturn(Optional.empty());
+        when(rows.findByShardIsNullAndIdempotencyKeyAndScope(anyString(), anyString())).thenReturn(Optional.empty());
+        when(rows.existsByShardIsNull()).thenReturn(true, false);
+        JpaIdempotencyStore store = new JpaIdempotencyStore(rows, 256, Duration.ofMillis(200), new SimpleMeterRegistry());
+
+        store.find("s", "a");
+        store.find("s", "b");
+        verify(rows, times(2)).findByShardIsNullAndIdempotencyKeyAndScope(anyString(), eq("s"));
+
+        // the last unsharded row was overwritten or swept meanwhile
+        Thread.sleep(250);
+        store.find("s", "c");
+        store.find("s", "d");
+        verify(rows, times(2)).findByShardIsNullAndIdempotencyKeyAndScope(anyString(), eq("s"));
+        verify(rows, times(2)).existsByShardIsNull();
+    }
+}
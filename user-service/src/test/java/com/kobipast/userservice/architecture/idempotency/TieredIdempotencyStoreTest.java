@@ -0,0 +1,60 @@
+package com.kobipast.userservice.architecture.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredIdempotencyStoreTest {
+
+    // stands in for the JPA table
+    static class CountingStore implements IdempotencyStore {
+        final Map<String, IdempotencyEntry> rows = new HashMap<>();
+        int finds;
+
+        @Override
+        public Optional<IdempotencyEntry> find(String scope, String idempotencyKey) {
+            finds++;
+            return Optional.ofNullable(rows.get(scope + idempotencyKey)).filter(e -> !e.isExpired(Instant.now()));
+        }
+
+        @Override
+        public void put(String scope, String idempotencyKey, IdempotencyEntry entry) {
+            rows.put(scope + idempotencyKey, entry);
+        }
+    }
+
+    private final CountingStore backing = new CountingStore();
+    private final TieredIdempotencyStore store = new TieredIdempotencyStore(backing, 100, new SimpleMeterRegistry());
+
+    @Test
+    void put_writesThrough_andReplaysFromMemoryWithoutTheBackingStore() {
+        IdempotencyEntry entry = new IdempotencyEntry(new byte[32], 201, "application/json", Map.of("Location", "/p/1"), "{}".getBytes(), Instant.now().plusSeconds(60));
+        store.put("s", "k", entry);
+
+        assertArrayEquals("{}".getBytes(), backing.rows.get("sk").payload());
+
+        assertSame(entry, store.find("s", "k").orElseThrow());
+        assertEquals(0, backing.finds);
+    }
+
+    @Test
+    void miss_readsThroughOnce_thenServesFromMemory() {
+        backing.rows.put("sk", new IdempotencyEntry(new byte[32], 200, "application/json", Map.of(), "{\"a\":1}".getBytes(), Instant.now().plusSeconds(60)));
+
+        assertTrue(store.find("s", "k").isPresent());
+        assertTrue(store.find("s", "k").isPresent());
+        assertEquals(1, backing.finds);
+    }
+
+    @Test
+    void expiredEntries_areAbsent() {
+        backing.rows.put("sk", new IdempotencyEntry(new byte[32], 200, "application/json", Map.of(), "{}".getBytes(), Instant.now().minusSeconds(1)));
+        assertTrue(store.find("s", "k").isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.kobipast.userservice.architecture.integration;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBatchLoaderTest {
+
+    private static final Map<String, String> ALICE = Map.of("Authorization", "Bearer alice");
+    private static final Map<String, String> BOB = Map.of("Authorization", "Bearer bob");
+
+    private final WireMockServer orderService = new WireMockServer(options().dynamicPort());
+    private OrderBatchLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        orderService.start();
+        OrderClientConfig config = new OrderClientConfig(new OrderClientProperties(orderService.baseUrl(), OrderClientProperties.Protocol.HTTP11, null, null), OrderClientMode.BLOCKING, false);
+        loader = new OrderBatchLoader(config.orderWebClient(config.orderConnectionProvider()), new SimpleMeterRegistry(), true, Duration.ofMillis(50), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderService.stop();
+    }
+
+    @Test
+    void concurrentLoads_goOutAsOneRequest_andMissingIdsFailOnTheirOwn() {
+        String a = UUID.randomUUID().toString();
+        String b = UUID.randomUUID().toString();
+        orderService.stubFor(post("/orders/batch-get").willReturn(okJson(
+                "{ \"orders\": [" + order(a) + "], \"missing\": [\"" + b + "\"] }")));
+
+        CompletableFuture<OrderDto> first = loader.load(a, ALICE);
+        CompletableFuture<OrderDto> duplicate = loader.load(a.toUpperCase(), ALICE);
+        CompletableFuture<OrderDto> missing = loader.load(b, ALICE);
+
+        assertEquals(a, first.join().id());
+        assertEquals(a, duplicate.join().id());
+        CompletionException ex = assertThrows(CompletionException.class, missing::join);
+        assertEquals(404, ((WebClientResponseException) ex.getCause()).getStatusCode().value());
+
+        // the same id twice in one window is asked for once
+        orderService.verify(1, postRequestedFor(urlEqualTo("/orders/batch-get"))
+                .withHeader("Authorization", equalTo("Bearer alice"))
+                .withRequestBody(equalToJson("{ \"ids\": [\"" + a + "\", \"" + b + "\"] }")));
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaiting_andCallersAreNeverMixed() {
+        orderService.stubFor(post("/orders/batch-get").willReturn(okJson("{ \"orders\": [], \"missing\": [] }")));
+
+        List<CompletableFuture<OrderDto>> loads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            loads.add(loader.load(UUID.randomUUID().toString(), ALICE));
+        }
+        loads.add(loader.load(UUID.randomUUID().toString(), BOB));
+        loads.forEach(f -> assertThrows(CompletionException.class, f::join));
+
+        // alice: a full batch of 3 and a timed one of 1; bob: his own batch
+        orderService.verify(2, postRequestedFor(urlEqualTo("/orders/batch-get")).withHeader("Authorization", equalTo("Bearer alice")));
+        orderService.verify(1, postRequestedFor(urlEqualTo("/orders/batch-get")).withHeader("Authorization", equalTo("Bearer bob")));
+    }
+
+    @Test
+    void hedgeWinning_doesNotCancelAnotherLoadOfTheSameId() {
+        String a = UUID.randomUUID().toString();
+        orderService.stubFor(post("/orders/batch-get").inScenario("slow first batch")
+                .whenScenarioStateIs(STARTED).willSetStateTo("fast")
+                .willReturn(okJson("{ \"orders\": [" + order(a) + "], \"missing\": [] }").withFixedDelay(300)));
+        orderService.stubFor(post("/orders/batch-get").inScenario("slow first batch")
+                .whenScenarioStateIs("fast")
+                .willReturn(okJson("{ \"orders\": [" + order(a) + "], \"missing\": [] }")));
+        // hedges after the first batch has gone out, so the hedge opens a batch of its own
+        OrderReadHedger hedger = new OrderReadHedger(new SimpleMeterRegistry(), true, Duration.ofMillis(100), 0.95,
+                Duration.ofMillis(10), Duration.ofSeconds(1), 100, 0.1, 10);
+
+        Mono<OrderDto> hedged = hedger.hedge(() -> Mono.fromFuture(() -> loader.load(a, ALICE)));
+        CompletableFuture<OrderDto> waiting = hedged.toFuture();
+        CompletableFuture<OrderDto> sameBatch = loader.load(a, ALICE);
+
+        assertEquals(a, waiting.join().id());
+        // the primary attempt lost and was cancelled; the load sharing its batch still gets the order
+        assertEquals(a, sameBatch.join().id());
+        orderService.verify(2, postRequestedFor(urlEqualTo("/orders/batch-get")));
+    }
+
+    @Test
+    void onlyUuidsAreBatched() {
+        assertTrue(loader.accepts(UUID.randomUUID().toString()));
+        assertFalse(loader.accepts("o-1"));
+        assertFalse(loader.accepts(null));
+    }
+
+    private static String order(String id) {
+        return "{ \"id\": \"" + id + "\", \"userId\": \"u\", \"status\": \"CREATED\", \"amount\": 1, \"createdAt\": \"2026-01-01T00:00:00Z\", \"version\": 0 }";
+    }
+}
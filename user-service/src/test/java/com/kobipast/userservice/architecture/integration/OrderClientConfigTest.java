@@ -0,0 +1,79 @@
+package com.kobipast.userservice.architecture.integration;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.anyRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class OrderClientConfigTest {
+
+    private final WireMockServer orderService = new WireMockServer(options().dynamicPort());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() {
+        orderService.start();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        Metrics.removeRegistry(registry);
+        orderService.stop();
+    }
+
+    @Test
+    void h2c_multiplexesOverOneConnection_andPublishesPoolGauges() {
+        orderService.stubFor(get("/orders/o-1").willReturn(okJson("""
+                { "id": "o-1", "userId": "u", "status": "CREATED", "amount": 3, "createdAt": "2026-01-01T00:00:00Z", "version": 0 }
+                """)));
+        OrderClientConfig config = new OrderClientConfig(
+                new OrderClientProperties(orderService.baseUrl(), OrderClientProperties.Protocol.H2C, null, null),
+                OrderClientMode.REACTIVE, false);
+        connectionProvider = config.orderConnectionProvider();
+        OrderClient client = new OrderClient(config.orderWebClient(connectionProvider), config.orderRestClient(),
+                new OrderBatchLoader(config.orderWebClient(connectionProvider), registry, false, Duration.ofMillis(5), 50),
+                new OrderReadHedger(registry, false, Duration.ofMillis(100), 0.95, Duration.ofMillis(10), Duration.ofSeconds(1), 100, 0.1, 10),
+                OrderClientMode.REACTIVE);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("o-1", client.getOrderFlat("o-1").id());
+        }
+
+        List<LoggedRequest> requests = orderService.findAll(anyRequestedFor(anyUrl()));
+        assertEquals(3, requests.size());
+        requests.forEach(r -> assertEquals("HTTP/2.0", r.getProtocol()));
+
+        // one TCP connection to order-service carried all three requests, as streams
+        assertEquals(1, gauge("reactor.netty.connection.provider.total.connections", "orders").value());
+        assertEquals(0, gauge("reactor.netty.connection.provider.active.streams", "http2.orders").value());
+        assertEquals(0, gauge("reactor.netty.connection.provider.pending.streams", "http2.orders").value());
+        assertEquals(1, gauge("reactor.netty.connection.provider.idle.connections", "http2.orders").value());
+    }
+
+    private Gauge gauge(String name, String pool) {
+        Gauge gauge = registry.find(name).tag("name", pool).gauge();
+        assertNotNull(gauge, name + " not registered:\n" + registry.getMetersAsString());
+        return gauge;
+    }
+}
@@ -0,0 +1,219 @@
+package com.kobipast.userservice.architecture.integration;
+
+import com.kobipast.userservice.UserServiceApplication;
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.security.JwtService;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load on {@code GET /architecture/orders/{id}} for each {@link OrderClientMode}, against a
+ * stub order-service that answers after a fixed delay. Every mode boots the real application with a
+ * deliberately small Tomcat pool, so the table shows how far concurrency toward order-service gets
+ * past it: {@code blocking} is today's behavior and tops out at the worker count.
+ * Not a test (surefire skips it); run its main method from the IDE against the test classpath.
+ * {@code virtual} only switches request handling to virtual threads on Java 21+; on older runtimes it
+ * measures the blocking RestClient on platform workers.
+ *
+ * <p>Args: {@code [clients] [seconds per run] [tomcat threads] [downstream latency ms]},
+ * defaulting to 200 clients, 5 s, 20 threads and 50 ms.</p>
+ */
+public class OrderClientModesBenchmark {
+
+    private static final String ORDER_JSON = """
+            { "id": "o-1", "userId": "bench@example.com", "status": "CREATED", "amount": 10, "createdAt": "2026-01-01T00:00:00Z", "version": 0 }
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Duration runTime = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 5);
+        int tomcatThreads = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        StubOrderService stub = new StubOrderService(latencyMs);
+        try {
+            System.out.printf("clients=%d, %ss per run, tomcat threads=%d, downstream latency=%dms, java %d%n",
+                    clients, runTime.toSeconds(), tomcatThreads, latencyMs, Runtime.version().feature());
+            System.out.printf("%9s %10s %9s %9s %8s %17s%n", "mode", "req/s", "p50 ms", "p99 ms", "errors", "peak downstream");
+            for (OrderClientMode mode : OrderClientMode.values()) {
+                Result r = run(mode, stub, clients, runTime, tomcatThreads);
+                System.out.printf("%9s %10.0f %9.1f %9.1f %8d %17d%n",
+                        mode.name().toLowerCase(), r.throughput, r.p50Ms, r.p99Ms, r.errors, r.peakDownstream);
+            }
+        } finally {
+            stub.stop();
+        }
+    }
+
+    private record Result(double throughput, double p50Ms, double p99Ms, long errors, int peakDownstream) {
+        Result withPeak(int peak) {
+            return new Result(throughput, p50Ms, p99Ms, errors, peak);
+        }
+    }
+
+    private static Result run(OrderClientMode mode, StubOrderService stub, int clients, Duration runTime, int tomcatThreads) throws Exception {
+        // command-line args, so they win over application.yaml
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(UserServiceApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--server.tomcat.accept-count=" + clients * 2,
+                "--server.tomcat.max-connections=" + clients * 2,
+                "--orders.client.mode=" + mode.name().toLowerCase(),
+                "--orders.client.base-url=" + stub.baseUrl(),
+                "--orders.client.protocol=http11", // the JDK stub server only speaks HTTP/1.1
+                "--spring.threads.virtual.enabled=" + (mode == OrderClientMode.VIRTUAL),
+                "--jwt.stateless-principal=true",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.io.github.resilience4j=WARN")) {
+            String base = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+            String token = "Bearer " + ctx.getBean(JwtService.class).generateToken("bench@example.com", Role.USER);
+
+            // short warm-up so the first mode isn't paying for JIT and connection setup
+            load(base, token, clients, Duration.ofSeconds(1));
+            stub.resetPeak();
+            return load(base, token, clients, runTime).withPeak(stub.peak());
+        }
+    }
+
+    private static Result load(String base, String token, int clients, Duration runTime) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/architecture/orders/o-1?retry=false"))
+                .header("Authorization", token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        LongAdder errors = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        List<long[]> latencies = new ArrayList<>();
+        int[] counts = new int[clients];
+        for (int c = 0; c < clients; c++) {
+            long[] mine = new long[1 << 16];
+            latencies.add(mine);
+            int slot = c;
+            Thread client = new Thread(() -> {
+                try {
+                    start.await();
+                    while (running.get()) {
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.increment();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (counts[slot] < mine.length) {
+                            mine[counts[slot]++] = System.nanoTime() - begin;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(runTime.toMillis());
+        running.set(false);
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int at = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies.get(c), 0, all, at, counts[c]);
+            at += counts[c];
+        }
+        Arrays.sort(all);
+        return new Result(total / seconds, percentileMs(all, 0.50), percentileMs(all, 0.99), errors.sum(), 0);
+    }
+
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    // order-service stand-in: a fixed delay per request and a high-water mark of concurrent requests
+    private static final class StubOrderService {
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        StubOrderService(long latencyMs) throws Exception {
+            byte[] body = ORDER_JSON.getBytes(StandardCharsets.UTF_8);
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+            server.setExecutor(executor);
+            server.createContext("/orders/", exchange -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(latencyMs);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    exchange.close();
+                }
+            });
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        int peak() {
+            return peak.get();
+        }
+
+        void resetPeak() {
+            peak.set(inFlight.get());
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.kobipast.userservice.architecture.integration;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.kobipast.userservice.architecture.integration.dto.OrderDto;
+import com.kobipast.userservice.architecture.integration.dto.UpdateOrderStatusRequest;
+import com.kobipast.userservice.architecture.integration.error.DownstreamProblemException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderClientTest {
+
+    private final WireMockServer orderService = new WireMockServer(options().dynamicPort());
+    private OrderClient client;
+
+    @BeforeEach
+    void setUp() {
+        orderService.start();
+        OrderClientConfig config = new OrderClientConfig(new OrderClientProperties(orderService.baseUrl(), OrderClientProperties.Protocol.HTTP11, null, null), OrderClientMode.VIRTUAL, false);
+        WebClient webClient = config.orderWebClient(config.orderConnectionProvider());
+        OrderBatchLoader batchLoader = new OrderBatchLoader(webClient, new SimpleMeterRegistry(), false, Duration.ofMillis(5), 50);
+        client = new OrderClient(webClient, config.orderRestClient(), batchLoader,
+                new OrderReadHedger(new SimpleMeterRegistry(), false, Duration.ofMillis(100), 0.95, Duration.ofMillis(10), Duration.ofSeconds(1), 100, 0.1, 10),
+                OrderClientMode.VIRTUAL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderService.stop();
+    }
+
+    @Test
+    void virtualMode_readsThroughTheBlockingRestClient() {
+        orderService.stubFor(get("/orders/o-1").willReturn(okJson("""
+                { "id": "o-1", "userId": "u", "status": "CREATED", "amount": 3, "createdAt": "2026-01-01T00:00:00Z", "version": 2 }
+                """)));
+
+        OrderDto order = client.getOrderFlat("o-1");
+
+        assertEquals("o-1", order.id());
+        assertEquals(2, order.version());
+        // the WebClient is not involved, so nothing went through reactor-netty
+        orderService.verify(1, getRequestedFor(urlEqualTo("/orders/o-1")).withHeader("User-Agent", matching("Java-http-client.*")));
+    }
+
+    @Test
+    void virtualMode_conflictBecomesDownstreamProblem() {
+        orderService.stubFor(patch(urlEqualTo("/orders/o-2/status")).willReturn(aResponse().withStatus(409)
+                .withHeader("Content-Type", "application/problem+json")
+                .withBody("{\"title\":\"Optimistic lock conflict\"}")));
+
+        DownstreamProblemException ex = assertThrows(DownstreamProblemException.class,
+                () -> client.updateStatus("o-2", new UpdateOrderStatusRequest("PAID", 0)));
+
+        assertEquals(409, ex.getStatus());
+        assertTrue(ex.getBody().contains("Optimistic lock conflict"));
+    }
+}
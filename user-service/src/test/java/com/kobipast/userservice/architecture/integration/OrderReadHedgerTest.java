@@ -0,0 +1,118 @@
+package com.kobipast.userservice.architecture.integration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderReadHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OrderReadHedger hedger(int maxTokens, long minSamples) {
+        return new OrderReadHedger(registry, true, Duration.ofMillis(20), 0.95,
+                Duration.ofMillis(10), Duration.ofMillis(500), minSamples, 0.1, maxTokens);
+    }
+
+    // first subscription answers after the first latency, the second after the next, and so on
+    private static Supplier<Mono<String>> reads(AtomicInteger attempts, List<Duration> latencies) {
+        return () -> {
+            int attempt = attempts.getAndIncrement();
+            return Mono.delay(latencies.get(attempt)).thenReturn("attempt-" + attempt);
+        };
+    }
+
+    private double count(String name, String tag, String value) {
+        return registry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void slowFirstAttempt_isHedged_andTheHedgeWins() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderReadHedger hedger = hedger(10, 100);
+
+        String answer = hedger.hedge(reads(attempts, List.of(Duration.ofSeconds(2), Duration.ofMillis(5)))).block();
+
+        assertEquals("attempt-1", answer);
+        assertEquals(2, attempts.get());
+        assertEquals(1, count("orders.client.hedge.requests", "outcome", "sent"));
+        assertEquals(1, count("orders.client.hedge.wins", "winner", "hedge"));
+        assertEquals(0, count("orders.client.hedge.wins", "winner", "primary"));
+    }
+
+    @Test
+    void fastFirstAttempt_isNotHedged() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderReadHedger hedger = hedger(10, 100);
+
+        String answer = hedger.hedge(reads(attempts, List.of(Duration.ofMillis(1)))).block();
+
+        assertEquals("attempt-0", answer);
+        assertEquals(1, attempts.get());
+        assertEquals(0, count("orders.client.hedge.requests", "outcome", "sent"));
+    }
+
+    @Test
+    void emptyBudget_sendsNoHedge_andWaitsForTheFirstAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderReadHedger hedger = hedger(1, 100);
+        List<Duration> slowThenFast = List.of(Duration.ofMillis(100), Duration.ofMillis(1), Duration.ofMillis(100), Duration.ofMillis(1));
+
+        assertEquals("attempt-1", hedger.hedge(reads(attempts, slowThenFast)).block());
+        // the one token is spent; 0.1 earned back per read is not enough for another hedge
+        assertEquals("attempt-2", hedger.hedge(reads(attempts, slowThenFast)).block());
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, count("orders.client.hedge.requests", "outcome", "sent"));
+        assertEquals(1, count("orders.client.hedge.requests", "outcome", "budget_exhausted"));
+    }
+
+    @Test
+    void failingHedge_doesNotBeatTheFirstAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderReadHedger hedger = hedger(10, 100);
+        Supplier<Mono<String>> read = () -> attempts.getAndIncrement() == 0
+                ? Mono.delay(Duration.ofMillis(100)).thenReturn("slow but fine")
+                : Mono.error(new IllegalStateException("boom"));
+
+        assertEquals("slow but fine", hedger.hedge(read).block());
+        assertEquals(1, count("orders.client.hedge.wins", "winner", "primary"));
+    }
+
+    @Test
+    void failingFirstAttempt_failsTheRead_withoutHedging() {
+        AtomicInteger attempts = new AtomicInteger();
+        OrderReadHedger hedger = hedger(10, 100);
+        Supplier<Mono<String>> read = () -> {
+            attempts.incrementAndGet();
+            return Mono.error(new IllegalStateException("404"));
+        };
+
+        assertThrows(IllegalStateException.class, () -> hedger.hedge(read).block());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void delay_followsTheObservedPercentile_onceThereAreEnoughSamples() {
+        OrderReadHedger hedger = hedger(10, 20);
+        assertEquals(Duration.ofMillis(20), hedger.currentDelay());
+
+        // a read is recorded just after block() returns, so the last one may not be counted yet
+        AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 25; i++) {
+            hedger.hedge(() -> Mono.delay(Duration.ofMillis(1 + attempts.getAndIncrement() % 3)).thenReturn("ok")).block();
+        }
+
+        // reads take 1-3 ms, so the p95 is clamped up to min-delay
+        assertEquals(Duration.ofMillis(10), hedger.currentDelay());
+        assertTrue(registry.get("orders.client.hedge.delay").gauge().value() <= 0.010);
+    }
+}
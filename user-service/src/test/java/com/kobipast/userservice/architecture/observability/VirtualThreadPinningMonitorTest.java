@@ -0,0 +1,29 @@
+package com.kobipast.userservice.architecture.observability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    void siteOf_skipsJdkFrames_toTheCodeHoldingTheCarrier() {
+        List<String> frames = List.of(
+                "java.lang.VirtualThread.parkOnCarrierThread",
+                "java.lang.VirtualThread.park",
+                "jdk.internal.misc.Unsafe.park",
+                "sun.nio.ch.NioSocketImpl.read",
+                "org.h2.engine.SessionRemote.readResponse",
+                "com.kobipast.userservice.architecture.cache.JdbcInvalidationTransport.poll");
+
+        assertEquals("org.h2.engine.SessionRemote.readResponse", VirtualThreadPinningMonitor.siteOf(frames));
+    }
+
+    @Test
+    void siteOf_fallsBackToInnermostFrame_whenEverythingIsJdk() {
+        assertEquals("java.lang.Object.wait0", VirtualThreadPinningMonitor.siteOf(List.of("java.lang.Object.wait0", "java.lang.Object.wait")));
+        assertEquals("unknown", VirtualThreadPinningMonitor.siteOf(List.of()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.kobipast.userservice.persistence.maintenance;
+
+import com.kobipast.userservice.architecture.idempotency.IdempotencyRecord;
+import com.kobipast.userservice.architecture.idempotency.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "housekeeping.sweep.initial-delay=PT1H",
+        "housekeeping.sweep.chunk-size=10",
+        "housekeeping.sweep.max-rows-per-run=25"
+})
+class ExpiredRowSweeperTest {
+
+    @Autowired ExpiredRowSweeper sweeper;
+    @Autowired IdempotencyRecordRepository repo;
+    @Autowired MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void cleanup() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void sweep_deletesExpiredRowsInBoundedRuns_andKeepsLiveOnes() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 30; i++) {
+            repo.save(record("expired-" + i, now.minus(Duration.ofMinutes(1))));
+        }
+        repo.save(record("live-1", now.plus(Duration.ofMinutes(10))));
+        repo.save(record("live-2", now.plus(Duration.ofMinutes(10))));
+
+        // first run stops at the per-run limit, the next one finishes the backlog
+        assertEquals(25, sweeper.sweepAll().get("idempotency_records"));
+        assertEquals(7, repo.count());
+        assertEquals(5, sweeper.sweepAll().get("idempotency_records"));
+        assertEquals(0, sweeper.sweepAll().get("idempotency_records"));
+
+        assertEquals(2, repo.count());
+        assertTrue(meterRegistry.get("housekeeping.sweep.rows").tag("table", "idempotency_records").counter().count() >= 30);
+        assertTrue(meterRegistry.get("housekeeping.sweep.duration").tag("table", "idempotency_records").timer().count() >= 3);
+    }
+
+    private static IdempotencyRecord record(String key, Instant expiresAt) {
+        IdempotencyRecord rec = new IdempotencyRecord();
+        rec.setIdempotencyKey(key);
+        rec.setScope("POST:/architecture/idempotency");
+        rec.setRequestHash("0".repeat(64));
+        rec.setStatusCode(201);
+        rec.setResponseBodyJson("{}");
+        rec.setCreatedAt(expiresAt.minus(Duration.ofMinutes(10)));
+        rec.setExpiresAt(expiresAt);
+        return rec;
+    }
+}
@@ -0,0 +1,68 @@
+package com.kobipast.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void shutdown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_runOnHashingPool_andRecordLatency() {
+        encoder = new BoundedPasswordEncoder(4, 1, 4, Duration.ofSeconds(5), meterRegistry);
+
+        String hash = encoder.encode("Te$t_PasW0rd!");
+
+        assertTrue(encoder.matches("Te$t_PasW0rd!", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash.duration").tag("op", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash.duration").tag("op", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_whenStoredCostDiffersFromConfigured() {
+        encoder = new BoundedPasswordEncoder(5, 1, 4, Duration.ofSeconds(5), meterRegistry);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("pw")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("pw")));
+    }
+
+    @Test
+    void whenPoolAndQueueAreFull_rejectsImmediately() {
+        // one thread, one queue slot, slow hashes: concurrent callers beyond 2 must be rejected
+        encoder = new BoundedPasswordEncoder(12, 1, 1, Duration.ofSeconds(30), meterRegistry);
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(CompletableFuture.runAsync(() -> {
+                try {
+                    encoder.encode("pw");
+                } catch (PasswordHashingRejectedException ex) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        calls.forEach(CompletableFuture::join);
+
+        assertTrue(rejected.get() >= 1, "Expected at least one rejected hash, got " + rejected.get());
+        assertEquals(rejected.get(), meterRegistry.get("auth.password.hash.rejected").counter().count());
+    }
+}
@@ -0,0 +1,85 @@
+package com.kobipast.userservice.security;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.stateless-principal=true")
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterStatelessTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    JwtService jwtService;
+    @Autowired
+    RevokedSubjectRegistry revokedSubjectRegistry;
+
+    @MockitoBean
+    UserDetailsService userDetailsService;
+
+    private final String AUTH = "Authorization";
+
+    @Test
+    void statelessMode_authenticatesFromClaims_withoutUserLookup() throws Exception {
+        String token = "Bearer " + jwtService.generateToken(new User("admin", "stateless-admin@example.com", "x", Role.ADMIN));
+
+        mvc.perform(get("/architecture/admin").header(AUTH, token))
+                .andExpect(status().isOk());
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void statelessMode_revokedSubject_returns401() throws Exception {
+        String token = "Bearer " + jwtService.generateToken(new User("user", "revoked@example.com", "x", Role.USER));
+
+        mvc.perform(get("/architecture/trace").header(AUTH, token))
+                .andExpect(status().isOk());
+
+        // e.g. user deleted or role changed
+        revokedSubjectRegistry.revoke("revoked@example.com");
+
+        mvc.perform(get("/architecture/trace").header(AUTH, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void statelessMode_tokenIssuedRightAfterRevocation_isAccepted() throws Exception {
+        revokedSubjectRegistry.revoke("relogin@example.com");
+        // a new login after the role change, well within the same second
+        Thread.sleep(2);
+        String token = "Bearer " + jwtService.generateToken(new User("user", "relogin@example.com", "x", Role.USER));
+
+        mvc.perform(get("/architecture/trace").header(AUTH, token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logout_denylistsAccessToken_butNotOtherTokensOfTheSameUser() throws Exception {
+        User user = new User("user", "logout-access@example.com", "x", Role.USER);
+        String token = "Bearer " + jwtService.generateToken(user);
+        String otherDevice = "Bearer " + jwtService.generateToken(user);
+
+        mvc.perform(post("/auth/logout").header(AUTH, token))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(get("/architecture/trace").header(AUTH, token))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(get("/architecture/trace").header(AUTH, otherDevice))
+                .andExpect(status().isOk());
+    }
+}
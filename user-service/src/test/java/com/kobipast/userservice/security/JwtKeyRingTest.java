@@ -0,0 +1,101 @@
+package com.kobipast.userservice.security;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtKeyRingTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    JwtKeyRing keyRing;
+    @Autowired
+    JwtService jwtService;
+
+    @Test
+    void jwks_isPublic_cacheable_andContainsActiveKid() throws Exception {
+        mvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("max-age=")))
+                .andExpect(jsonPath("$.keys[*].kid", hasItem(keyRing.active().kid())))
+                .andExpect(jsonPath("$.keys[0].d").doesNotExist());
+    }
+
+    @Test
+    void rotate_tokensSignedWithPreviousKey_stillVerify() {
+        String before = jwtService.generateToken(new User("rot", "rotate@example.com", "x", Role.USER));
+
+        keyRing.rotate();
+        String after = jwtService.generateToken(new User("rot", "rotate@example.com", "x", Role.USER));
+
+        assertEquals("rotate@example.com", jwtService.verify(before).subject());
+        assertEquals("rotate@example.com", jwtService.verify(after).subject());
+    }
+
+    private static JwtKeyRing fromKeystore(String activeAlias) {
+        return new JwtKeyRing("ES256", 60_000, "classpath:jwt-signing-test.p12", "changeit", activeAlias);
+    }
+
+    @Test
+    void keystore_replicasShareKeys_soEitherVerifiesTheOthersTokens() {
+        JwtKeyRing replicaA = fromKeystore("current");
+        JwtKeyRing replicaB = fromKeystore("current");
+
+        String token = Jwts.builder()
+                .header().keyId(replicaA.active().kid()).and()
+                .subject("shared@example.com")
+                .signWith(replicaA.active().keyPair().getPrivate(), replicaA.signatureAlgorithm())
+                .compact();
+
+        assertEquals(replicaA.active().kid(), replicaB.active().kid());
+        String subject = Jwts.parser()
+                .verifyWith(replicaB.verificationKey(replicaA.active().kid()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+        assertEquals("shared@example.com", subject);
+    }
+
+    @Test
+    void keystore_publishesEveryEntry_andOnlyTheActiveAliasSigns() {
+        JwtKeyRing ring = fromKeystore("current");
+        String nextKid = fromKeystore("next").active().kid();
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> published = (List<Map<String, Object>>) ring.publicJwks().get("keys");
+        assertEquals(2, published.size());
+        assertNotNull(ring.verificationKey(nextKid));
+        assertNotEquals(nextKid, ring.active().kid());
+
+        // the scheduled rotation leaves keystore keys alone; replicas would otherwise diverge
+        String active = ring.active().kid();
+        ring.rotate();
+        assertEquals(active, ring.active().kid());
+    }
+
+    @Test
+    void keystore_unknownActiveAlias_failsStartup() {
+        assertThrows(IllegalStateException.class, () -> fromKeystore("missing"));
+    }
+}
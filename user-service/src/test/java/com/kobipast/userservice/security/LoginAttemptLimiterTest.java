@@ -0,0 +1,129 @@
+package com.kobipast.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptLimiterTest {
+
+    private LoginAttemptLimiter limiter(int maxFailures, int maxFailuresPerIp, int maxKeys) {
+        return new LoginAttemptLimiter(maxFailures, maxFailuresPerIp, Duration.ofMinutes(5), 10, 4, maxKeys, new SimpleMeterRegistry());
+    }
+
+    private static void fail(LoginAttemptLimiter limiter, String email, String ip) {
+        limiter.recordFailure(limiter.acquire(email, ip));
+    }
+
+    @Test
+    void blocksEmailAndIpPair_afterMaxFailures_withRetryAfter() {
+        LoginAttemptLimiter limiter = limiter(3, 100, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            fail(limiter, "victim@example.com", "10.0.0.1");
+        }
+
+        LoginAttemptsExceededException ex = assertThrows(LoginAttemptsExceededException.class,
+                () -> limiter.acquire("VICTIM@example.com", "10.0.0.1"));
+        assertTrue(ex.getRetryAfterSeconds() > 0 && ex.getRetryAfterSeconds() <= 300);
+        assertEquals(1L, limiter.stats().get("blockedRequests"));
+    }
+
+    @Test
+    void failuresFromOneIp_doNotLockTheAccountForOtherIps() {
+        LoginAttemptLimiter limiter = limiter(3, 100, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            fail(limiter, "victim@example.com", "10.6.6.6");
+        }
+
+        assertThrows(LoginAttemptsExceededException.class, () -> limiter.acquire("victim@example.com", "10.6.6.6"));
+        assertDoesNotThrow(() -> limiter.acquire("victim@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void blocksIp_acrossDifferentEmails_atItsOwnHigherLimit() {
+        LoginAttemptLimiter limiter = limiter(3, 10, 1000);
+
+        // well past the per-pair limit in total, but spread over emails - a shared NAT, or a scan
+        for (int i = 0; i < 10; i++) {
+            fail(limiter, "user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThrows(LoginAttemptsExceededException.class, () -> limiter.acquire("fresh@example.com", "10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.acquire("fresh@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void success_clearsThePair_andGivesTheIpItsAttemptBack() {
+        LoginAttemptLimiter limiter = limiter(2, 2, 1000);
+        fail(limiter, "me@example.com", "10.0.0.1");
+
+        limiter.recordSuccess(limiter.acquire("me@example.com", "10.0.0.1"));
+
+        // pair cleared; the IP holds the one failure only
+        fail(limiter, "me@example.com", "10.0.0.1");
+        assertThrows(LoginAttemptsExceededException.class, () -> limiter.acquire("other@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    void released_attempt_isNotCounted() {
+        LoginAttemptLimiter limiter = limiter(1, 100, 1000);
+
+        limiter.release(limiter.acquire("me@example.com", "10.0.0.1"));
+
+        assertDoesNotThrow(() -> limiter.acquire("me@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    void parallelBurst_cannotGetPastTheLimit() throws Exception {
+        LoginAttemptLimiter limiter = limiter(5, 100, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        // the password check is still running for all of them
+                        limiter.acquire("victim@example.com", "10.0.0.1");
+                        return true;
+                    } catch (LoginAttemptsExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int admitted = 0;
+            for (Future<Boolean> result : results) {
+                admitted += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(5, admitted);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void trackedKeys_stayBounded() {
+        LoginAttemptLimiter limiter = limiter(5, 100, 40);
+
+        for (int i = 0; i < 1000; i++) {
+            fail(limiter, "scan" + i + "@example.com", "10.1." + (i / 250) + "." + (i % 250));
+        }
+
+        assertTrue((int) limiter.stats().get("trackedKeys") <= 40);
+        assertTrue((long) limiter.stats().get("evictedKeys") > 0);
+    }
+}
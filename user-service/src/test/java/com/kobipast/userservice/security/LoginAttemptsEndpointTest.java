@@ -0,0 +1,36 @@
+package com.kobipast.userservice.security;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.stateless-principal=true")
+@AutoConfigureMockMvc
+class LoginAttemptsEndpointTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    JwtService jwtService;
+
+    private final String AUTH = "Authorization";
+
+    @Test
+    void stats_requireAdmin() throws Exception {
+        mvc.perform(get("/actuator/loginattempts"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/loginattempts").header(AUTH, "Bearer " + jwtService.generateToken("user@example.com", Role.USER)))
+                .andExpect(status().isForbidden());
+
+        mvc.perform(get("/actuator/loginattempts").header(AUTH, "Bearer " + jwtService.generateToken("admin@example.com", Role.ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxFailuresPerIp").exists());
+    }
+}
@@ -0,0 +1,50 @@
+package com.kobipast.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenDenylistTest {
+
+    private final TokenDenylist denylist = new TokenDenylist(Duration.ofSeconds(1), 1000, 0.01, new SimpleMeterRegistry());
+
+    private static VerifiedToken token(String jti, Instant expiresAt) {
+        return new VerifiedToken(jti, "someone@example.com", List.of("ROLE_USER"), Instant.now(), expiresAt);
+    }
+
+    @Test
+    void revokedJti_isRejected_othersAreNot() {
+        Instant exp = Instant.now().plus(Duration.ofMinutes(5));
+        denylist.revoke(token("revoked", exp));
+
+        assertTrue(denylist.isRevoked(token("revoked", exp)));
+        assertFalse(denylist.isRevoked(token("other", exp)));
+        assertFalse(denylist.isRevoked(token(null, exp)));
+    }
+
+    @Test
+    void purge_dropsOnlyBucketsWhoseTokensExpired() throws Exception {
+        Instant soon = Instant.now().plusMillis(1100);
+        Instant later = Instant.now().plus(Duration.ofMinutes(5));
+        denylist.revoke("short-lived", soon);
+        denylist.revoke("long-lived", later);
+        assertEquals(2, denylist.size());
+
+        Thread.sleep(Duration.between(Instant.now(), soon).toMillis() + 1100);
+        denylist.purgeExpired();
+
+        assertEquals(1, denylist.size());
+        assertTrue(denylist.isRevoked(token("long-lived", later)));
+    }
+
+    @Test
+    void alreadyExpiredToken_isNotStored() {
+        denylist.revoke("stale", Instant.now().minusSeconds(1));
+        assertEquals(0, denylist.size());
+    }
+}
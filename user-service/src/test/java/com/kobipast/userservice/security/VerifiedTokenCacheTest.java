@@ -0,0 +1,49 @@
+package com.kobipast.userservice.security;
+
+import com.kobipast.userservice.persistence.entity.Role;
+import com.kobipast.userservice.persistence.entity.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class VerifiedTokenCacheTest {
+
+    @Autowired
+    VerifiedTokenCache verifiedTokenCache;
+
+    @MockitoSpyBean
+    JwtService jwtService;
+
+    @Test
+    void verify_sameTokenTwice_checksSignatureOnce() {
+        String token = jwtService.generateToken(new User("cache", "cache@example.com", "x", Role.ADMIN));
+
+        VerifiedToken first = verifiedTokenCache.verify(token);
+        VerifiedToken second = verifiedTokenCache.verify(token);
+
+        assertEquals("cache@example.com", first.subject());
+        assertEquals(List.of("ROLE_ADMIN"), first.roles());
+        assertSame(first, second, "Second call should be served from cache");
+        verify(jwtService, times(1)).verify(token);
+    }
+
+    @Test
+    void verify_tamperedToken_isRejectedEveryTime() {
+        String token = jwtService.generateToken(new User("cache", "tampered@example.com", "x", Role.USER));
+        String other = jwtService.generateToken(new User("cache", "other@example.com", "x", Role.USER));
+        // keep header+payload, swap in a signature that belongs to a different token
+        String tampered = token.substring(0, token.lastIndexOf('.')) + other.substring(other.lastIndexOf('.'));
+
+        assertThrows(JwtException.class, () -> verifiedTokenCache.verify(tampered));
+        assertThrows(JwtException.class, () -> verifiedTokenCache.verify(tampered));
+        verify(jwtService, times(2)).verify(tampered);
+    }
+}